@@ -0,0 +1,48 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Analyzer#visit(Ast.Source)} on generated programs of
+ * increasing size. Analysis only sets fields of the AST, so the same tree is
+ * analyzed again on every invocation.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AnalyzerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tokens;
+
+    private Scope parent;
+    private Ast.Source ast;
+
+    @Setup
+    public void setup() {
+        parent = ProgramGenerator.analyzerScope();
+        ast = new Parser(new Lexer(ProgramGenerator.program(tokens)).lex()).parseSource();
+    }
+
+    @Benchmark
+    public Scope analyze() {
+        Analyzer analyzer = new Analyzer(parent);
+        analyzer.visit(ast);
+        return analyzer.getScope();
+    }
+
+}
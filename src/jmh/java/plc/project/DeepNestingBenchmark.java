@@ -0,0 +1,51 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress tests {@link Parser.Mode#ITERATIVE} on nesting far deeper than the
+ * recursive parser can handle on a default stack, both for expressions and
+ * for blocks.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DeepNestingBenchmark {
+
+    @Param({"100000"})
+    public int depth;
+
+    private TokenBuffer expression;
+    private TokenBuffer blocks;
+
+    @Setup
+    public void setup() {
+        expression = new DfaLexer(ProgramGenerator.nested(depth)).lexBuffer();
+        blocks = new DfaLexer(ProgramGenerator.blocks(depth)).lexBuffer();
+    }
+
+    @Benchmark
+    public Ast.Source parseExpression() {
+        return new Parser(expression, Parser.Mode.ITERATIVE).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseBlocks() {
+        return new Parser(blocks, Parser.Mode.ITERATIVE).parseSource();
+    }
+
+}
@@ -0,0 +1,53 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link Interpreter} on a hot loop, where the time goes into
+ * evaluating the same few statements and the call in the loop body. The loop
+ * is run both as parsed and after the {@link Analyzer} has resolved its
+ * variables to frame slots.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LoopBenchmark {
+
+    @Param({"1000", "100000"})
+    public int iterations;
+
+    private Ast.Source ast;
+    private Ast.Source analyzed;
+
+    @Setup
+    public void setup() {
+        ast = new Parser(new Lexer(ProgramGenerator.loop(iterations)).lex()).parseSource();
+        analyzed = new Parser(new Lexer(ProgramGenerator.loop(iterations)).lex()).parseSource();
+        new Analyzer(ProgramGenerator.analyzerScope()).visit(analyzed);
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return new Interpreter(new Scope(null)).visit(ast).getValue();
+    }
+
+    @Benchmark
+    public Object interpretAnalyzed() {
+        return new Interpreter(new Scope(null)).visit(analyzed).getValue();
+    }
+
+}
@@ -0,0 +1,74 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every phase on a single deeply nested expression, which stresses
+ * the recursion of the parser, analyzer and interpreter rather than the
+ * size of the program.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NestingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int depth;
+
+    private Scope parent;
+    private String source;
+    private List<Token> lexed;
+    private Ast.Source ast;
+
+    @Setup
+    public void setup() {
+        parent = ProgramGenerator.analyzerScope();
+        source = ProgramGenerator.nested(depth);
+        lexed = new Lexer(source).lex();
+        ast = new Parser(lexed).parseSource();
+        new Analyzer(parent).visit(ast);
+    }
+
+    @Benchmark
+    public List<Token> lex() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parseSource() {
+        return new Parser(lexed).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseSourceIterative() {
+        return new Parser(lexed, Parser.Mode.ITERATIVE).parseSource();
+    }
+
+    @Benchmark
+    public Scope analyze() {
+        Analyzer analyzer = new Analyzer(parent);
+        analyzer.visit(ast);
+        return analyzer.getScope();
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return new Interpreter(new Scope(null)).visit(ast).getValue();
+    }
+
+}
@@ -0,0 +1,66 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Parser#parseSource()} on the tokens of generated programs
+ * of increasing size.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tokens;
+
+    private String source;
+    private List<Token> lexed;
+
+    @Setup
+    public void setup() {
+        source = ProgramGenerator.program(tokens);
+        lexed = new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parseSource() {
+        return new Parser(lexed).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseSourceParallel() {
+        return new ParallelParser(lexed).parseSource();
+    }
+
+    /**
+     * Lexes and parses in a single pass, for comparison with
+     * {@link #lexAndParseSource()}.
+     */
+    @Benchmark
+    public Ast.Source streamSource() {
+        return new Parser(new StreamingLexer(new StringReader(source))).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source lexAndParseSource() {
+        return new Parser(new DfaLexer(source).lex()).parseSource();
+    }
+
+}
@@ -0,0 +1,170 @@
+package plc.project;
+
+import java.util.Collections;
+
+/**
+ * Generates deterministic synthetic programs for the benchmarks. Every
+ * program is valid for all phases: it lexes, parses, passes the
+ * {@link Analyzer} (given a {@code main/0} returning {@code Integer}), and
+ * runs in the {@link Interpreter} without printing. Integer literals are
+ * never {@code 0}, which the lexer rejects as a leading zero.
+ */
+public final class ProgramGenerator {
+
+    /**
+     * The approximate number of tokens in each generated function, including
+     * its call from {@code main}.
+     */
+    private static final int TOKENS_PER_FUNCTION = 128;
+
+    private ProgramGenerator() {}
+
+    /**
+     * Returns a program of roughly the given number of tokens, made up of
+     * globals and functions using every kind of statement. Each function
+     * calls an earlier one, and main calls every function once.
+     */
+    public static String program(int tokens) {
+        int functions = Math.max(1, tokens / TOKENS_PER_FUNCTION);
+        StringBuilder builder = new StringBuilder();
+        builder.append("VAR counter: Integer = 1;\n");
+        builder.append("VAL scale: Integer = 3;\n");
+        builder.append("VAL ratio: Decimal = 1.5;\n");
+        builder.append("VAL greeting: String = \"hello\";\n");
+        for (int i = 0; i < functions; i++) {
+            String callee = i == 0 ? "x" : "f" + (i / 2) + "(x)";
+            builder.append("FUN f").append(i).append("(x: Integer): Integer DO\n");
+            builder.append("    LET y: Integer = ").append(callee).append(" * scale + ").append(1 + i % 7).append(";\n");
+            builder.append("    LET d: Decimal = ratio * 2.0 - 0.25;\n");
+            builder.append("    LET s: String = greeting;\n");
+            builder.append("    LET flag: Boolean = y > 10 && x != ").append(1 + i % 5).append(" || FALSE;\n");
+            builder.append("    IF flag DO\n");
+            builder.append("        y = y - 10;\n");
+            builder.append("    ELSE\n");
+            builder.append("        y = (y + 1) * 2;\n");
+            builder.append("    END\n");
+            builder.append("    WHILE y > 100 DO\n");
+            builder.append("        y = y / 2;\n");
+            builder.append("    END\n");
+            builder.append("    SWITCH x\n");
+            builder.append("        CASE 1:\n");
+            builder.append("            y = y + 1;\n");
+            builder.append("        DEFAULT\n");
+            builder.append("            y = y + 3;\n");
+            builder.append("    END\n");
+            builder.append("    counter = counter + 1;\n");
+            builder.append("    RETURN y;\n");
+            builder.append("END\n");
+        }
+        builder.append("FUN main(): Integer DO\n");
+        builder.append("    LET total: Integer = 1;\n");
+        for (int i = 0; i < functions; i++) {
+            builder.append("    total = total + f").append(i).append("(").append(1 + i % 10).append(");\n");
+        }
+        builder.append("    RETURN total;\n");
+        builder.append("END\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns a program whose main function returns an expression with the
+     * given depth of nested parentheses, alternating between operators.
+     */
+    public static String nested(int depth) {
+        StringBuilder builder = new StringBuilder("FUN main(): Integer DO\n    RETURN ");
+        for (int i = 0; i < depth; i++) {
+            builder.append('(');
+        }
+        builder.append('1');
+        for (int i = 0; i < depth; i++) {
+            builder.append(i % 2 == 0 ? " + 1)" : " * 1)");
+        }
+        builder.append(";\nEND\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns a program whose main function has the given depth of nested
+     * statements, alternating between {@code IF}/{@code ELSE} and
+     * {@code WHILE}, with an assignment in the innermost block.
+     */
+    public static String blocks(int depth) {
+        StringBuilder builder = new StringBuilder("FUN main(): Integer DO\n    LET x: Integer = 1;\n");
+        for (int i = 0; i < depth; i++) {
+            builder.append(i % 2 == 0 ? "IF x > 1 DO\n" : "WHILE x < 1 DO\n");
+        }
+        builder.append("x = x + 1;\n");
+        for (int i = depth - 1; i >= 0; i--) {
+            builder.append(i % 2 == 0 ? "ELSE\nx = 1;\nEND\n" : "END\n");
+        }
+        builder.append("    RETURN x;\nEND\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns a program whose main function runs a loop for the given number
+     * of iterations, with arithmetic, a comparison and a call in the body.
+     */
+    public static String loop(int iterations) {
+        return "FUN step(x: Integer): Integer DO\n"
+                + "    RETURN x * 2 + 1;\n"
+                + "END\n"
+                + "FUN main(): Integer DO\n"
+                + "    LET i: Integer = 1;\n"
+                + "    LET sum: Integer = 1;\n"
+                + "    WHILE i < " + (iterations + 1) + " DO\n"
+                + "        IF i > 10 DO\n"
+                + "            sum = sum + step(i);\n"
+                + "        ELSE\n"
+                + "            sum = sum - i;\n"
+                + "        END\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN sum;\n"
+                + "END\n";
+    }
+
+    /**
+     * Returns a program whose main function runs a loop for the given number
+     * of iterations, where the body is mostly one large arithmetic expression
+     * of literals, groups, binary operators and variable accesses.
+     */
+    public static String expressions(int iterations) {
+        return "FUN main(): Integer DO\n"
+                + "    LET i: Integer = 1;\n"
+                + "    LET sum: Integer = 1;\n"
+                + "    WHILE i < " + (iterations + 1) + " DO\n"
+                + "        sum = (sum + i * 3 - (i + 1) / 2) / 2 + (i * 2 + 1) - i;\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN sum;\n"
+                + "END\n";
+    }
+
+    /**
+     * Returns a program whose main function computes the given Fibonacci
+     * number by naive recursion, so the time goes into function calls.
+     */
+    public static String fibonacci(int n) {
+        return "FUN fib(n: Integer): Integer DO\n"
+                + "    IF n < 2 DO\n"
+                + "        RETURN n;\n"
+                + "    END\n"
+                + "    RETURN fib(n - 1) + fib(n - 2);\n"
+                + "END\n"
+                + "FUN main(): Integer DO\n"
+                + "    RETURN fib(" + n + ");\n"
+                + "END\n";
+    }
+
+    /**
+     * Returns the scope the analyzer expects its parent to be, which already
+     * declares {@code main/0}.
+     */
+    public static Scope analyzerScope() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("main", "main", Collections.emptyList(), Environment.Type.INTEGER, args -> Environment.NIL);
+        return scope;
+    }
+
+}
@@ -0,0 +1,53 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link Interpreter} on a naive recursive Fibonacci, where the
+ * time goes into calls. The program is run both as parsed, where every call
+ * looks its function up in the scope, and after the {@link Analyzer} has
+ * resolved the calls.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RecursionBenchmark {
+
+    @Param({"10", "20"})
+    public int n;
+
+    private Ast.Source ast;
+    private Ast.Source analyzed;
+
+    @Setup
+    public void setup() {
+        ast = new Parser(new Lexer(ProgramGenerator.fibonacci(n)).lex()).parseSource();
+        analyzed = new Parser(new Lexer(ProgramGenerator.fibonacci(n)).lex()).parseSource();
+        new Analyzer(ProgramGenerator.analyzerScope()).visit(analyzed);
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return new Interpreter(new Scope(null)).visit(ast).getValue();
+    }
+
+    @Benchmark
+    public Object interpretAnalyzed() {
+        return new Interpreter(new Scope(null)).visit(analyzed).getValue();
+    }
+
+}
@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an analyzed program with {@link AstReader} against
+ * building it again from source with the lexer, parser and analyzer, and
+ * measures writing it with {@link AstWriter}.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tokens;
+
+    private String source;
+    private Ast.Source ast;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        source = ProgramGenerator.program(tokens);
+        ast = rebuild();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AstWriter(out).write(ast);
+        bytes = out.toByteArray();
+    }
+
+    @Benchmark
+    public Ast.Source read() throws IOException {
+        return new AstReader(new ByteArrayInputStream(bytes)).read();
+    }
+
+    @Benchmark
+    public Ast.Source rebuild() {
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        new Analyzer(ProgramGenerator.analyzerScope()).visit(ast);
+        return ast;
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        new AstWriter(out).write(ast);
+        return out.size();
+    }
+
+}
@@ -16,6 +16,10 @@ public final class Analyzer implements Ast.Visitor<Void> {
     public Scope scope;
     private Ast.Function function;
     private Environment.Type returnType;
+    private int globals = 0;
+    private int functions = 0;
+    private int slots = 0;
+    private int frameSize = 0;
     public Analyzer(Scope parent) {
         scope = new Scope(parent);
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
@@ -62,6 +66,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
         //set variable
         ast.setVariable(scope.defineVariable(ast.getName(),ast.getName(),Environment.getType(ast.getTypeName()),ast.getMutable(),Environment.NIL));
+        //give the global the next slot in the global frame
+        ast.getVariable().setSlot(0, globals++);
         //return null
         return null;
     }
@@ -87,12 +93,17 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         //set function
         ast.setFunction(scope.defineFunction(ast.getName(), ast.getName(), paramTypes, returnType, args -> Environment.NIL));
+        //give the function the next index in the function table, which calls to it use
+        ast.getFunction().setIndex(functions++);
         try {
             //new scope
             scope = new Scope(scope);
+            //parameters take the first slots of the frame
+            slots = 0;
+            frameSize = 0;
             //define all parameters
             for(int i = 0; i < ast.getParameters().size(); i++) {
-                scope.defineVariable(ast.getParameters().get(i), ast.getParameters().get(i), paramTypes.get(i), true, Environment.NIL);
+                defineSlot(scope.defineVariable(ast.getParameters().get(i), ast.getParameters().get(i), paramTypes.get(i), true, Environment.NIL));
             }
 
             this.returnType = returnType;
@@ -100,6 +111,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             for(Ast.Statement statement : ast.getStatements()) {
                 visit(statement);
             }
+            ast.setFrameSize(frameSize);
         } finally {
             scope = scope.getParent();
         }
@@ -143,7 +155,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             requireAssignable(type, ast.getValue().get().getType());
         }
         //set variable
-        ast.setVariable(scope.defineVariable(ast.getName(),ast.getName(), type, true, Environment.NIL));
+        ast.setVariable(defineSlot(scope.defineVariable(ast.getName(),ast.getName(), type, true, Environment.NIL)));
         //return null
         return null;
     }
@@ -173,6 +185,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
             throw new RuntimeException();
         }
 
+        //slots of the block are reused once it ends
+        int slots = this.slots;
         //visit then statements
         for(Ast.Statement then : ast.getThenStatements()) {
             try {
@@ -182,6 +196,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
                 scope = scope.getParent();
             }
         }
+        this.slots = slots;
         //visit else statements in new scope
         for(Ast.Statement elses : ast.getElseStatements()) {
             try {
@@ -191,6 +206,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
                 scope = scope.getParent();
             }
         }
+        this.slots = slots;
         //return null
         return null;
     }
@@ -216,12 +232,14 @@ public final class Analyzer implements Ast.Visitor<Void> {
                     throw new RuntimeException();
                 }
             }
+            int slots = this.slots;
             try {
                 //visit cases in new scope
                 scope = new Scope(scope);
                 visit(cases);
             } finally {
                 scope = scope.getParent();
+                this.slots = slots;
             }
         }
         //return null
@@ -247,6 +265,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             throw new RuntimeException("Expected boolean condition");
         }
         //visit statements in new scope
+        int slots = this.slots;
         try {
             scope = new Scope(scope);
             for (Ast.Statement statement : ast.getStatements()) {
@@ -254,6 +273,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
         } finally {
             scope = scope.getParent();
+            this.slots = slots;
         }
         //return null
         return null;
@@ -298,6 +318,15 @@ public final class Analyzer implements Ast.Visitor<Void> {
                 throw new RuntimeException("Value of int not in range of integer");
             }
         }
+        if(literal instanceof Long) {
+            //ensure value is within integer limits
+            long val = (Long) literal;
+            if (val == (int) val) {
+                ast.setType(Environment.Type.INTEGER);
+            } else {
+                throw new RuntimeException("Value of int not in range of integer");
+            }
+        }
         if(literal instanceof BigDecimal) {
             //ensure value is within double limits
             Double val = ((BigDecimal) literal).doubleValue();
@@ -458,6 +487,17 @@ public final class Analyzer implements Ast.Visitor<Void> {
         return null;
     }
 
+    /**
+     * Gives a local variable the next slot in the frame of the function being
+     * analyzed. Slots of a block are reused by the blocks after it, so the
+     * frame size is the most slots in use at once.
+     */
+    private Environment.Variable defineSlot(Environment.Variable variable) {
+        variable.setSlot(1, slots++);
+        frameSize = Math.max(frameSize, slots);
+        return variable;
+    }
+
     public static void requireAssignable(Environment.Type target, Environment.Type type) {
         //if same var return
         if (target.getName().equals(type.getName()))
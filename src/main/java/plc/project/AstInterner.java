@@ -0,0 +1,234 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hash-conses an {@link Ast.Source}, returning a tree in which structurally
+ * identical expression subtrees are a single shared node.
+ *
+ * Only subtrees made of literals, groups, binary expressions and lists are
+ * shared. The type the {@link Analyzer} sets on those depends only on the
+ * subtree itself, so a shared node gets the same type wherever it appears.
+ * Accesses and function calls are resolved in the scope they appear in, so
+ * they (and the expressions containing them) are copied instead, although
+ * their shareable operands are still shared. Since equal literals become the
+ * same node, each distinct literal value is kept once, and names, type names
+ * and operators are interned by a {@link SymbolTable}.
+ *
+ * The pass is meant to run between the {@link Parser} and the
+ * {@link Analyzer}; the variables and functions set on an analyzed tree are
+ * not copied. An interner keeps its nodes, so trees interned by the same one
+ * share nodes with each other as well.
+ */
+public final class AstInterner {
+
+    private final SymbolTable symbols;
+    private final Map<Key, Ast.Expression> expressions = new HashMap<>();
+    private final Set<Ast.Expression> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public AstInterner() {
+        this(new SymbolTable());
+    }
+
+    public AstInterner(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns the number of distinct shared expressions.
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    public Ast.Source intern(Ast.Source source) {
+        List<Ast.Global> globals = new ArrayList<>(source.getGlobals().size());
+        for (Ast.Global global : source.getGlobals()) {
+            globals.add(new Ast.Global(name(global.getName()), name(global.getTypeName()), global.getMutable(), optional(global.getValue())));
+        }
+        List<Ast.Function> functions = new ArrayList<>(source.getFunctions().size());
+        for (Ast.Function function : source.getFunctions()) {
+            functions.add(new Ast.Function(
+                    name(function.getName()),
+                    names(function.getParameters()),
+                    names(function.getParameterTypeNames()),
+                    function.getReturnTypeName().map(this::name),
+                    statements(function.getStatements())
+            ));
+        }
+        return new Ast.Source(globals, functions);
+    }
+
+    /**
+     * Returns the shared node of the expression if it can be shared, or else
+     * a copy of it whose shareable operands are shared.
+     */
+    public Ast.Expression intern(Ast.Expression expression) {
+        if (expression instanceof Ast.Expression.Literal) {
+            return share(new Key(Ast.Expression.Literal.class, ((Ast.Expression.Literal) expression).getLiteral()), expression);
+        } else if (expression instanceof Ast.Expression.Group) {
+            Ast.Expression inner = intern(((Ast.Expression.Group) expression).getExpression());
+            if (shared.contains(inner)) {
+                return share(new Key(Ast.Expression.Group.class, null, inner), new Ast.Expression.Group(inner));
+            }
+            return new Ast.Expression.Group(inner);
+        } else if (expression instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+            String operator = name(binary.getOperator());
+            Ast.Expression left = intern(binary.getLeft());
+            Ast.Expression right = intern(binary.getRight());
+            if (shared.contains(left) && shared.contains(right)) {
+                return share(new Key(Ast.Expression.Binary.class, operator, left, right), new Ast.Expression.Binary(operator, left, right));
+            }
+            return new Ast.Expression.Binary(operator, left, right);
+        } else if (expression instanceof Ast.Expression.Access) {
+            Ast.Expression.Access access = (Ast.Expression.Access) expression;
+            return new Ast.Expression.Access(optional(access.getOffset()), name(access.getName()));
+        } else if (expression instanceof Ast.Expression.Function) {
+            Ast.Expression.Function function = (Ast.Expression.Function) expression;
+            return new Ast.Expression.Function(name(function.getName()), expressions(function.getArguments()));
+        } else if (expression instanceof Ast.Expression.PlcList) {
+            List<Ast.Expression> values = expressions(((Ast.Expression.PlcList) expression).getValues());
+            for (Ast.Expression value : values) {
+                if (!shared.contains(value)) {
+                    return new Ast.Expression.PlcList(values);
+                }
+            }
+            return share(new Key(Ast.Expression.PlcList.class, null, values.toArray(new Ast.Expression[0])), new Ast.Expression.PlcList(values));
+        } else {
+            throw new AssertionError("Unimplemented expression " + expression.getClass() + ".");
+        }
+    }
+
+    /**
+     * Returns the node already shared for the key, or else makes the given
+     * node the shared one.
+     */
+    private Ast.Expression share(Key key, Ast.Expression expression) {
+        Ast.Expression existing = expressions.putIfAbsent(key, expression);
+        if (existing != null) {
+            return existing;
+        }
+        shared.add(expression);
+        return expression;
+    }
+
+    private List<Ast.Statement> statements(List<Ast.Statement> statements) {
+        List<Ast.Statement> interned = new ArrayList<>(statements.size());
+        for (Ast.Statement statement : statements) {
+            interned.add(statement(statement));
+        }
+        return interned;
+    }
+
+    private Ast.Statement statement(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.Expression) {
+            return new Ast.Statement.Expression(intern(((Ast.Statement.Expression) statement).getExpression()));
+        } else if (statement instanceof Ast.Statement.Declaration) {
+            Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) statement;
+            return new Ast.Statement.Declaration(name(declaration.getName()), declaration.getTypeName().map(this::name), optional(declaration.getValue()));
+        } else if (statement instanceof Ast.Statement.Assignment) {
+            Ast.Statement.Assignment assignment = (Ast.Statement.Assignment) statement;
+            return new Ast.Statement.Assignment(intern(assignment.getReceiver()), intern(assignment.getValue()));
+        } else if (statement instanceof Ast.Statement.If) {
+            Ast.Statement.If ast = (Ast.Statement.If) statement;
+            return new Ast.Statement.If(intern(ast.getCondition()), statements(ast.getThenStatements()), statements(ast.getElseStatements()));
+        } else if (statement instanceof Ast.Statement.Switch) {
+            Ast.Statement.Switch ast = (Ast.Statement.Switch) statement;
+            List<Ast.Statement.Case> cases = new ArrayList<>(ast.getCases().size());
+            for (Ast.Statement.Case caseStatement : ast.getCases()) {
+                cases.add((Ast.Statement.Case) statement(caseStatement));
+            }
+            return new Ast.Statement.Switch(intern(ast.getCondition()), cases);
+        } else if (statement instanceof Ast.Statement.Case) {
+            Ast.Statement.Case ast = (Ast.Statement.Case) statement;
+            return new Ast.Statement.Case(optional(ast.getValue()), statements(ast.getStatements()));
+        } else if (statement instanceof Ast.Statement.While) {
+            Ast.Statement.While ast = (Ast.Statement.While) statement;
+            return new Ast.Statement.While(intern(ast.getCondition()), statements(ast.getStatements()));
+        } else if (statement instanceof Ast.Statement.Return) {
+            return new Ast.Statement.Return(intern(((Ast.Statement.Return) statement).getValue()));
+        } else {
+            throw new AssertionError("Unimplemented statement " + statement.getClass() + ".");
+        }
+    }
+
+    private Optional<Ast.Expression> optional(Optional<Ast.Expression> expression) {
+        return expression.map(this::intern);
+    }
+
+    private List<Ast.Expression> expressions(List<Ast.Expression> expressions) {
+        List<Ast.Expression> interned = new ArrayList<>(expressions.size());
+        for (Ast.Expression expression : expressions) {
+            interned.add(intern(expression));
+        }
+        return interned;
+    }
+
+    private String name(String name) {
+        return name == null ? null : symbols.getName(symbols.intern(name));
+    }
+
+    private List<String> names(List<String> names) {
+        List<String> interned = new ArrayList<>(names.size());
+        for (String name : names) {
+            interned.add(name(name));
+        }
+        return interned;
+    }
+
+    /**
+     * The kind and value of a shareable node along with its operands, which
+     * are already shared and so are compared by identity.
+     */
+    private static final class Key {
+
+        private final Class<?> kind;
+        private final Object value;
+        private final Ast.Expression[] operands;
+        private final int hash;
+
+        private Key(Class<?> kind, Object value, Ast.Expression... operands) {
+            this.kind = kind;
+            this.value = value;
+            this.operands = operands;
+            int hash = kind.hashCode() * 31 + Objects.hashCode(value);
+            for (Ast.Expression operand : operands) {
+                hash = hash * 31 + System.identityHashCode(operand);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (kind != other.kind || hash != other.hash || !Objects.equals(value, other.value) || operands.length != other.operands.length) {
+                return false;
+            }
+            for (int i = 0; i < operands.length; i++) {
+                if (operands[i] != other.operands[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,426 @@
+package plc.project;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads an {@link Ast.Source} written by {@link AstWriter}, rebuilding the
+ * tree (and what the {@link Analyzer} set on it) without lexing, parsing or
+ * analyzing the program.
+ *
+ * Types are looked up with {@link Environment#getType(String)}, so the
+ * nodes refer to the same types as an analyzed tree. Variables and functions
+ * are recreated with their name, JVM name and types, and nodes which shared
+ * one still do; variables start with the value {@link Environment#NIL} and
+ * functions do nothing when invoked, as when the analyzer defines them. The
+ * slots, function indices and frame sizes are restored, so the tree can be
+ * interpreted as if it had just been analyzed.
+ *
+ * A stream with another {@link AstWriter#VERSION} or which is not in the
+ * format throws a {@link StreamCorruptedException}, and one which ends early
+ * an {@link EOFException}. Sizes read from the stream are not trusted for
+ * allocation, so a corrupted size fails at the end of the stream instead.
+ */
+public final class AstReader {
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+    private int limit = 0;
+    private boolean started = false;
+    private final List<String> strings = new ArrayList<>();
+    private final List<Object> references = new ArrayList<>();
+    private boolean analyzed;
+
+    public AstReader(InputStream in) {
+        this.in = in;
+        strings.add(null);
+        references.add(null);
+    }
+
+    /**
+     * Reads the next source from the stream.
+     */
+    public Ast.Source read() throws IOException {
+        if (!started) {
+            if (readInt() != AstWriter.MAGIC) {
+                throw new StreamCorruptedException("Not an Ast stream.");
+            }
+            int version = readByte();
+            if (version != AstWriter.VERSION) {
+                throw new StreamCorruptedException("Unsupported Ast version " + version + ".");
+            }
+            started = true;
+        }
+        analyzed = readByte() != 0;
+        int size = readSize();
+        List<Ast.Global> globals = list(size);
+        for (int i = 0; i < size; i++) {
+            Ast.Global global = new Ast.Global(readString(), readString(), readByte() != 0, readOptional());
+            if (analyzed) {
+                Environment.Variable variable = readVariable();
+                if (variable != null) {
+                    global.setVariable(variable);
+                }
+            }
+            globals.add(global);
+        }
+        size = readSize();
+        List<Ast.Function> functions = list(size);
+        for (int i = 0; i < size; i++) {
+            String name = readString();
+            List<String> parameters = readStrings();
+            List<String> parameterTypeNames = readStrings();
+            Optional<String> returnTypeName = Optional.ofNullable(readString());
+            Ast.Function function = new Ast.Function(name, parameters, parameterTypeNames, returnTypeName, readStatements());
+            if (analyzed) {
+                Environment.Function resolved = readFunction();
+                if (resolved != null) {
+                    function.setFunction(resolved);
+                }
+                function.setFrameSize((int) readLong());
+            }
+            functions.add(function);
+        }
+        return new Ast.Source(globals, functions);
+    }
+
+    private List<Ast.Statement> readStatements() throws IOException {
+        int size = readSize();
+        List<Ast.Statement> statements = list(size);
+        for (int i = 0; i < size; i++) {
+            statements.add(readStatement());
+        }
+        return statements;
+    }
+
+    private Ast.Statement readStatement() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case AstWriter.EXPRESSION:
+                return new Ast.Statement.Expression(readExpression());
+            case AstWriter.DECLARATION:
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(readString(), Optional.ofNullable(readString()), readOptional());
+                if (analyzed) {
+                    Environment.Variable variable = readVariable();
+                    if (variable != null) {
+                        declaration.setVariable(variable);
+                    }
+                }
+                return declaration;
+            case AstWriter.ASSIGNMENT:
+                return new Ast.Statement.Assignment(readExpression(), readExpression());
+            case AstWriter.IF:
+                return new Ast.Statement.If(readExpression(), readStatements(), readStatements());
+            case AstWriter.SWITCH:
+                Ast.Expression condition = readExpression();
+                int size = readSize();
+                List<Ast.Statement.Case> cases = list(size);
+                for (int i = 0; i < size; i++) {
+                    cases.add(new Ast.Statement.Case(readOptional(), readStatements()));
+                }
+                return new Ast.Statement.Switch(condition, cases);
+            case AstWriter.CASE:
+                return new Ast.Statement.Case(readOptional(), readStatements());
+            case AstWriter.WHILE:
+                return new Ast.Statement.While(readExpression(), readStatements());
+            case AstWriter.RETURN:
+                return new Ast.Statement.Return(readExpression());
+            default:
+                throw new StreamCorruptedException("Invalid statement tag " + tag + ".");
+        }
+    }
+
+    private Optional<Ast.Expression> readOptional() throws IOException {
+        return Optional.ofNullable(readExpressionOrAbsent());
+    }
+
+    private Ast.Expression readExpression() throws IOException {
+        Ast.Expression expression = readExpressionOrAbsent();
+        if (expression == null) {
+            throw new StreamCorruptedException("Missing expression.");
+        }
+        return expression;
+    }
+
+    private Ast.Expression readExpressionOrAbsent() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case AstWriter.ABSENT:
+                return null;
+            case AstWriter.NIL:
+                return readLiteral(null);
+            case AstWriter.TRUE:
+                return readLiteral(true);
+            case AstWriter.FALSE:
+                return readLiteral(false);
+            case AstWriter.INTEGER:
+                return readLiteral(BigInteger.valueOf(readLong()));
+            case AstWriter.LONG:
+                return readLiteral(readLong());
+            case AstWriter.BIG_INTEGER:
+                return readLiteral(readBigInteger());
+            case AstWriter.DECIMAL:
+                BigInteger unscaled = readBigInteger();
+                return readLiteral(new BigDecimal(unscaled, (int) readLong()));
+            case AstWriter.CHARACTER:
+                int character = readSize();
+                if (character > Character.MAX_VALUE) {
+                    throw new StreamCorruptedException("Invalid character " + character + ".");
+                }
+                return readLiteral((char) character);
+            case AstWriter.STRING:
+                return readLiteral(readString());
+            case AstWriter.GROUP:
+                Ast.Expression.Group group = new Ast.Expression.Group(readExpression());
+                if (analyzed) {
+                    setType(group::setType);
+                }
+                return group;
+            case AstWriter.BINARY:
+                Ast.Expression.Binary binary = new Ast.Expression.Binary(readString(), readExpression(), readExpression());
+                if (analyzed) {
+                    setType(binary::setType);
+                }
+                return binary;
+            case AstWriter.ACCESS:
+                String name = readString();
+                Ast.Expression.Access access = new Ast.Expression.Access(readOptional(), name);
+                if (analyzed) {
+                    Environment.Variable variable = readVariable();
+                    if (variable != null) {
+                        access.setVariable(variable);
+                    }
+                }
+                return access;
+            case AstWriter.FUNCTION:
+                name = readString();
+                Ast.Expression.Function function = new Ast.Expression.Function(name, readExpressions());
+                if (analyzed) {
+                    Environment.Function resolved = readFunction();
+                    if (resolved != null) {
+                        function.setFunction(resolved);
+                    }
+                }
+                return function;
+            case AstWriter.LIST:
+                Ast.Expression.PlcList list = new Ast.Expression.PlcList(readExpressions());
+                if (analyzed) {
+                    setType(list::setType);
+                }
+                return list;
+            default:
+                throw new StreamCorruptedException("Invalid expression tag " + tag + ".");
+        }
+    }
+
+    private List<Ast.Expression> readExpressions() throws IOException {
+        int size = readSize();
+        List<Ast.Expression> expressions = list(size);
+        for (int i = 0; i < size; i++) {
+            expressions.add(readExpression());
+        }
+        return expressions;
+    }
+
+    private Ast.Expression.Literal readLiteral(Object value) throws IOException {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+        if (analyzed) {
+            setType(literal::setType);
+        }
+        return literal;
+    }
+
+    private void setType(java.util.function.Consumer<Environment.Type> setter) throws IOException {
+        Environment.Type type = readType();
+        if (type != null) {
+            setter.accept(type);
+        }
+    }
+
+    private String readString() throws IOException {
+        int index = readSize();
+        if (index < strings.size()) {
+            return strings.get(index);
+        } else if (index != strings.size()) {
+            throw new StreamCorruptedException("Invalid string " + index + ".");
+        }
+        String string = new String(readBytes(), StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+
+    private List<String> readStrings() throws IOException {
+        int size = readSize();
+        List<String> strings = list(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString());
+        }
+        return strings;
+    }
+
+    private Environment.Type readType() throws IOException {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Environment.getType(name);
+        } catch (RuntimeException e) {
+            throw new StreamCorruptedException("Unknown type " + name + ".");
+        }
+    }
+
+    private Environment.Variable readVariable() throws IOException {
+        int index = readReference();
+        if (index < references.size()) {
+            return reference(Environment.Variable.class, index);
+        }
+        Environment.Variable variable = new Environment.Variable(readString(), readString(), readType(), readByte() != 0, Environment.NIL);
+        variable.setSlot((int) readLong(), (int) readLong());
+        references.add(variable);
+        return variable;
+    }
+
+    private Environment.Function readFunction() throws IOException {
+        int index = readReference();
+        if (index < references.size()) {
+            return reference(Environment.Function.class, index);
+        }
+        String name = readString();
+        String jvmName = readString();
+        int arity = readSize();
+        List<Environment.Type> parameterTypes = list(arity);
+        for (int i = 0; i < arity; i++) {
+            parameterTypes.add(readType());
+        }
+        Environment.Function function = new Environment.Function(name, jvmName, parameterTypes, readType(), args -> Environment.NIL);
+        function.setIndex((int) readLong());
+        references.add(function);
+        return function;
+    }
+
+    /**
+     * Reads the index of a reference, which is the size of the table if it
+     * is new and follows.
+     */
+    private int readReference() throws IOException {
+        int index = readSize();
+        if (index > references.size()) {
+            throw new StreamCorruptedException("Invalid reference " + index + ".");
+        }
+        return index;
+    }
+
+    /**
+     * Returns the reference at the index, which must be of the given type.
+     */
+    private <T> T reference(Class<T> type, int index) throws IOException {
+        Object reference = references.get(index);
+        if (reference != null && !type.isInstance(reference)) {
+            throw new StreamCorruptedException("Invalid reference " + index + ".");
+        }
+        return type.cast(reference);
+    }
+
+    /**
+     * Reads bytes prefixed by their count. Bytes past the buffer are read as
+     * they arrive, so a corrupted count fails at the end of the stream rather
+     * than allocating the whole count up front.
+     */
+    private byte[] readBytes() throws IOException {
+        int size = readSize();
+        int buffered = Math.min(size, limit - position);
+        if (buffered == size) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + size);
+            position += size;
+            return bytes;
+        }
+        byte[] rest = in.readNBytes(size - buffered);
+        if (rest.length < size - buffered) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[size];
+        System.arraycopy(buffer, position, bytes, 0, buffered);
+        System.arraycopy(rest, 0, bytes, buffered, rest.length);
+        position += buffered;
+        return bytes;
+    }
+
+    private BigInteger readBigInteger() throws IOException {
+        byte[] bytes = readBytes();
+        if (bytes.length == 0) {
+            throw new StreamCorruptedException("Empty integer.");
+        }
+        return new BigInteger(bytes);
+    }
+
+    private int readInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    private long readLong() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new StreamCorruptedException("Invalid integer.");
+    }
+
+    /**
+     * Reads a size, which must fit in a non-negative {@code int}.
+     */
+    private int readSize() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            if ((b & 0x7F) > Integer.MAX_VALUE >>> shift) {
+                break;
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Invalid size.");
+    }
+
+    /**
+     * Returns a list for the given number of elements read from the stream.
+     * Every element takes at least a byte, so a corrupted size fails at the
+     * end of the stream, but it is not trusted as the initial capacity.
+     */
+    private static <T> List<T> list(int size) {
+        return new ArrayList<>(Math.min(size, 16));
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                throw new EOFException();
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+}
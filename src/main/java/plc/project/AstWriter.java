@@ -0,0 +1,421 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes an {@link Ast.Source} in a compact binary format which
+ * {@link AstReader} reads back, so a parsed (and analyzed) program can be
+ * cached instead of lexing, parsing and analyzing it again.
+ *
+ * The format starts with {@link #MAGIC} and {@link #VERSION}, followed by a
+ * flag for whether the tree was analyzed. Nodes are written in prefix order
+ * as a tag byte and their fields, with lists prefixed by their size and
+ * integers as variable length quantities. Strings, types, variables and
+ * functions are written once and referred to by index afterwards, which
+ * keeps repeated names small and preserves which nodes share a variable or
+ * function. If the tree was analyzed, each node is followed by what the
+ * {@link Analyzer} set on it, including the slots of variables, the indices
+ * of functions and the frame sizes of functions.
+ *
+ * Output is buffered and written to the stream as the buffer fills.
+ */
+public final class AstWriter {
+
+    static final int MAGIC = 0x504C4341;
+    static final int VERSION = 3;
+
+    static final int EXPRESSION = 1;
+    static final int DECLARATION = 2;
+    static final int ASSIGNMENT = 3;
+    static final int IF = 4;
+    static final int SWITCH = 5;
+    static final int CASE = 6;
+    static final int WHILE = 7;
+    static final int RETURN = 8;
+
+    static final int ABSENT = 0;
+    static final int NIL = 1;
+    static final int TRUE = 2;
+    static final int FALSE = 3;
+    static final int INTEGER = 4;
+    static final int BIG_INTEGER = 5;
+    static final int DECIMAL = 6;
+    static final int CHARACTER = 7;
+    static final int STRING = 8;
+    static final int GROUP = 9;
+    static final int BINARY = 10;
+    static final int ACCESS = 11;
+    static final int FUNCTION = 12;
+    static final int LIST = 13;
+    static final int LONG = 14;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private boolean started = false;
+    private boolean analyzed;
+
+    public AstWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the source and flushes the stream. A writer may write several
+     * sources, which share their tables and must be read by one reader.
+     *
+     * The tree must either be fully analyzed or not analyzed at all, which is
+     * decided by whether its first declaration was analyzed.
+     */
+    public void write(Ast.Source source) throws IOException {
+        if (!started) {
+            writeInt(MAGIC);
+            writeByte(VERSION);
+            started = true;
+        }
+        analyzed = isAnalyzed(source);
+        writeByte(analyzed ? 1 : 0);
+        writeSize(source.getGlobals().size());
+        for (Ast.Global global : source.getGlobals()) {
+            writeString(global.getName());
+            writeString(global.getTypeName());
+            writeByte(global.getMutable() ? 1 : 0);
+            writeOptional(global.getValue());
+            if (analyzed) {
+                writeVariable(resolve(global::getVariable));
+            }
+        }
+        writeSize(source.getFunctions().size());
+        for (Ast.Function function : source.getFunctions()) {
+            writeString(function.getName());
+            writeStrings(function.getParameters());
+            writeStrings(function.getParameterTypeNames());
+            writeString(function.getReturnTypeName().orElse(null));
+            writeStatements(function.getStatements());
+            if (analyzed) {
+                writeFunction(resolve(function::getFunction));
+                writeLong(function.getFrameSize());
+            }
+        }
+        flush();
+    }
+
+    private void writeStatements(List<Ast.Statement> statements) throws IOException {
+        writeSize(statements.size());
+        for (Ast.Statement statement : statements) {
+            writeStatement(statement);
+        }
+    }
+
+    private void writeStatement(Ast.Statement statement) throws IOException {
+        if (statement instanceof Ast.Statement.Expression) {
+            writeByte(EXPRESSION);
+            writeExpression(((Ast.Statement.Expression) statement).getExpression());
+        } else if (statement instanceof Ast.Statement.Declaration) {
+            Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) statement;
+            writeByte(DECLARATION);
+            writeString(declaration.getName());
+            writeString(declaration.getTypeName().orElse(null));
+            writeOptional(declaration.getValue());
+            if (analyzed) {
+                writeVariable(resolve(declaration::getVariable));
+            }
+        } else if (statement instanceof Ast.Statement.Assignment) {
+            writeByte(ASSIGNMENT);
+            writeExpression(((Ast.Statement.Assignment) statement).getReceiver());
+            writeExpression(((Ast.Statement.Assignment) statement).getValue());
+        } else if (statement instanceof Ast.Statement.If) {
+            writeByte(IF);
+            writeExpression(((Ast.Statement.If) statement).getCondition());
+            writeStatements(((Ast.Statement.If) statement).getThenStatements());
+            writeStatements(((Ast.Statement.If) statement).getElseStatements());
+        } else if (statement instanceof Ast.Statement.Switch) {
+            List<Ast.Statement.Case> cases = ((Ast.Statement.Switch) statement).getCases();
+            writeByte(SWITCH);
+            writeExpression(((Ast.Statement.Switch) statement).getCondition());
+            writeSize(cases.size());
+            for (Ast.Statement.Case c : cases) {
+                writeOptional(c.getValue());
+                writeStatements(c.getStatements());
+            }
+        } else if (statement instanceof Ast.Statement.Case) {
+            writeByte(CASE);
+            writeOptional(((Ast.Statement.Case) statement).getValue());
+            writeStatements(((Ast.Statement.Case) statement).getStatements());
+        } else if (statement instanceof Ast.Statement.While) {
+            writeByte(WHILE);
+            writeExpression(((Ast.Statement.While) statement).getCondition());
+            writeStatements(((Ast.Statement.While) statement).getStatements());
+        } else if (statement instanceof Ast.Statement.Return) {
+            writeByte(RETURN);
+            writeExpression(((Ast.Statement.Return) statement).getValue());
+        } else {
+            throw new IllegalArgumentException("Unsupported statement " + statement.getClass().getName() + ".");
+        }
+    }
+
+    private void writeOptional(Optional<Ast.Expression> expression) throws IOException {
+        if (expression.isPresent()) {
+            writeExpression(expression.get());
+        } else {
+            writeByte(ABSENT);
+        }
+    }
+
+    private void writeExpression(Ast.Expression expression) throws IOException {
+        if (expression instanceof Ast.Expression.Literal) {
+            writeLiteral(((Ast.Expression.Literal) expression).getLiteral());
+        } else if (expression instanceof Ast.Expression.Group) {
+            writeByte(GROUP);
+            writeExpression(((Ast.Expression.Group) expression).getExpression());
+        } else if (expression instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+            writeByte(BINARY);
+            writeString(binary.getOperator());
+            writeExpression(binary.getLeft());
+            writeExpression(binary.getRight());
+        } else if (expression instanceof Ast.Expression.Access) {
+            Ast.Expression.Access access = (Ast.Expression.Access) expression;
+            writeByte(ACCESS);
+            writeString(access.getName());
+            writeOptional(access.getOffset());
+            if (analyzed) {
+                writeVariable(resolve(access::getVariable));
+            }
+            return;
+        } else if (expression instanceof Ast.Expression.Function) {
+            Ast.Expression.Function function = (Ast.Expression.Function) expression;
+            writeByte(FUNCTION);
+            writeString(function.getName());
+            writeSize(function.getArguments().size());
+            for (Ast.Expression argument : function.getArguments()) {
+                writeExpression(argument);
+            }
+            if (analyzed) {
+                writeFunction(resolve(function::getFunction));
+            }
+            return;
+        } else if (expression instanceof Ast.Expression.PlcList) {
+            List<Ast.Expression> values = ((Ast.Expression.PlcList) expression).getValues();
+            writeByte(LIST);
+            writeSize(values.size());
+            for (Ast.Expression value : values) {
+                writeExpression(value);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported expression " + expression.getClass().getName() + ".");
+        }
+        if (analyzed) {
+            writeType(resolve(expression::getType));
+        }
+    }
+
+    private void writeLiteral(Object literal) throws IOException {
+        if (literal == null) {
+            writeByte(NIL);
+        } else if (literal instanceof Boolean) {
+            writeByte((Boolean) literal ? TRUE : FALSE);
+        } else if (literal instanceof Long) {
+            writeByte(LONG);
+            writeLong((Long) literal);
+        } else if (literal instanceof BigInteger) {
+            BigInteger integer = (BigInteger) literal;
+            if (integer.bitLength() < 64) {
+                writeByte(INTEGER);
+                writeLong(integer.longValue());
+            } else {
+                writeByte(BIG_INTEGER);
+                writeBytes(integer.toByteArray());
+            }
+        } else if (literal instanceof BigDecimal) {
+            writeByte(DECIMAL);
+            writeBytes(((BigDecimal) literal).unscaledValue().toByteArray());
+            writeLong(((BigDecimal) literal).scale());
+        } else if (literal instanceof Character) {
+            writeByte(CHARACTER);
+            writeSize((Character) literal);
+        } else if (literal instanceof String) {
+            writeByte(STRING);
+            writeString((String) literal);
+        } else {
+            throw new IllegalArgumentException("Unsupported literal " + literal.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Writes a string as its index in the string table, followed by the
+     * string itself the first time it is written. Index 0 is {@code null}.
+     */
+    private void writeString(String string) throws IOException {
+        if (string == null) {
+            writeSize(0);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeSize(index);
+            return;
+        }
+        strings.put(string, strings.size() + 1);
+        writeSize(strings.size());
+        writeBytes(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeStrings(List<String> strings) throws IOException {
+        writeSize(strings.size());
+        for (String string : strings) {
+            writeString(string);
+        }
+    }
+
+    private void writeType(Environment.Type type) throws IOException {
+        writeString(type == null ? null : type.getName());
+    }
+
+    /**
+     * Writes a variable as its index in the reference table, followed by the
+     * variable itself the first time it is written. Index 0 is {@code null}.
+     * The slot of the variable is written, but not its value.
+     */
+    private void writeVariable(Environment.Variable variable) throws IOException {
+        if (writeReference(variable)) {
+            writeString(variable.getName());
+            writeString(variable.getJvmName());
+            writeType(variable.getType());
+            writeByte(variable.getMutable() ? 1 : 0);
+            writeLong(variable.getDepth());
+            writeLong(variable.getIndex());
+        }
+    }
+
+    /**
+     * Writes a function like {@link #writeVariable(Environment.Variable)}.
+     * The index of the function is written, but not its implementation.
+     */
+    private void writeFunction(Environment.Function function) throws IOException {
+        if (writeReference(function)) {
+            writeString(function.getName());
+            writeString(function.getJvmName());
+            writeSize(function.getParameterTypes().size());
+            for (Environment.Type type : function.getParameterTypes()) {
+                writeType(type);
+            }
+            writeType(function.getReturnType());
+            writeLong(function.getIndex());
+        }
+    }
+
+    /**
+     * Writes the index of the object in the reference table, returning true
+     * if it is new and has to be written.
+     */
+    private boolean writeReference(Object object) throws IOException {
+        if (object == null) {
+            writeSize(0);
+            return false;
+        }
+        Integer index = references.get(object);
+        if (index != null) {
+            writeSize(index);
+            return false;
+        }
+        references.put(object, references.size() + 1);
+        writeSize(references.size());
+        return true;
+    }
+
+    /**
+     * Returns the value of a field set by the analyzer, or {@code null} if it
+     * was never set.
+     */
+    private static <T> T resolve(java.util.function.Supplier<T> getter) {
+        try {
+            return getter.get();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAnalyzed(Ast.Source source) {
+        if (!source.getGlobals().isEmpty()) {
+            return resolve(source.getGlobals().get(0)::getVariable) != null;
+        } else if (!source.getFunctions().isEmpty()) {
+            return resolve(source.getFunctions().get(0)::getFunction) != null;
+        }
+        return false;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeSize(bytes.length);
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeInt(int value) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            writeByte(value >>> shift);
+        }
+    }
+
+    /**
+     * Writes a signed value as a zigzag encoded variable length quantity.
+     */
+    private void writeLong(long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            writeByte((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        writeByte((int) zigzag);
+    }
+
+    /**
+     * Writes a non-negative value as a variable length quantity, seven bits
+     * per byte with the high bit set on all but the last.
+     */
+    private void writeSize(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    /**
+     * Writes any buffered output and flushes the stream.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+}
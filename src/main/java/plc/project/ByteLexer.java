@@ -0,0 +1,179 @@
+package plc.project;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lexer which scans UTF-8 encoded input directly, without decoding it into
+ * a {@link String} first.
+ *
+ * All of the syntax outside of string and character literals is ASCII, so
+ * each byte is classified with the tables of {@link DfaLexer}. Multi-byte
+ * sequences are only decoded when they are part of a token's literal. Token
+ * indices and {@link ParseException} positions are still character offsets,
+ * the same as {@link Lexer#lex()} on the decoded input; a four byte sequence
+ * counts as the two characters of its surrogate pair.
+ *
+ * The input is expected to be well-formed UTF-8. Malformed bytes count as
+ * the replacement characters they decode to, one for each byte which cannot
+ * start a sequence and one for the valid prefix of a truncated sequence.
+ */
+public final class ByteLexer {
+
+    private final byte[] input;
+    private final int end;
+    private int position;
+    private int index = 0;
+    private boolean low = false;
+    private boolean ascii = true;
+
+    public ByteLexer(byte[] input) {
+        this(input, 0, input.length);
+    }
+
+    /**
+     * Creates a lexer over the bytes {@code [start, end)}. Character indices
+     * are counted from {@code start}.
+     */
+    public ByteLexer(byte[] input, int start, int end) {
+        this.input = input;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Lexes the entire input, skipping whitespace between tokens exactly like
+     * {@link Lexer#lex()}.
+     */
+    public List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        while (skipWhitespace()) {
+            tokens.add(lexToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes a single token starting at the current position.
+     */
+    public Token lexToken() {
+        int startPosition = position;
+        int startIndex = index;
+        boolean startLow = low;
+        ascii = !low;
+        int state = DfaLexer.S_START;
+        while (true) {
+            int action = DfaLexer.transition(state, classify());
+            if (action < DfaLexer.ACCEPT) {
+                state = action;
+                advance();
+            } else if (action < DfaLexer.ERROR) {
+                if (action >= DfaLexer.ACCEPT_CONSUME) {
+                    advance();
+                }
+                Token.Type type = DfaLexer.acceptedType(action);
+                return new Token(type, literal(startPosition, startLow), startIndex);
+            } else {
+                throw DfaLexer.error(action, index);
+            }
+        }
+    }
+
+    private boolean skipWhitespace() {
+        while (position < end) {
+            int cls = classify();
+            if (cls != DfaLexer.C_SPACE && cls != DfaLexer.C_EOL) {
+                return true;
+            }
+            advance();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the character class of the character at the current position.
+     * Everything outside of ASCII is an operator character except for the
+     * line terminators U+0085, U+2028 and U+2029.
+     */
+    private int classify() {
+        if (position >= end) {
+            return DfaLexer.C_EOF;
+        }
+        byte b = input[position];
+        if (b >= 0) {
+            return DfaLexer.classify((char) b);
+        }
+        if (!low && (b == (byte) 0xC2 && byteAt(1) == (byte) 0x85
+                || b == (byte) 0xE2 && byteAt(1) == (byte) 0x80 && (byteAt(2) == (byte) 0xA8 || byteAt(2) == (byte) 0xA9))) {
+            return DfaLexer.C_TERMINATOR;
+        }
+        return DfaLexer.C_OTHER;
+    }
+
+    /**
+     * Advances past the character at the current position. A four byte
+     * sequence is advanced over in two steps, one for each surrogate.
+     */
+    private void advance() {
+        index++;
+        if (input[position] >= 0) {
+            position++;
+            return;
+        }
+        ascii = false;
+        int length = sequenceLength();
+        if (length == 4 && !low) {
+            low = true;
+        } else {
+            low = false;
+            position += length;
+        }
+    }
+
+    /**
+     * Returns the number of bytes in the sequence at the current position.
+     * A malformed sequence is split the same way as the JDK decoder splits it
+     * into replacement characters: a byte which cannot start a sequence is
+     * one character, and otherwise the longest valid prefix is one.
+     */
+    private int sequenceLength() {
+        int lead = input[position] & 0xFF;
+        if (lead < 0xC2 || lead > 0xF4) {
+            return 1;
+        }
+        int expected = lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+        int length = 1;
+        while (length < expected && position + length < end) {
+            int b = input[position + length] & 0xFF;
+            //the second byte also rules out overlong and out of range sequences
+            int min = length == 1 && lead == 0xE0 ? 0xA0 : length == 1 && lead == 0xF0 ? 0x90 : 0x80;
+            int max = length == 1 && lead == 0xF4 ? 0x8F : 0xBF;
+            if (b < min || b > max) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    private byte byteAt(int offset) {
+        return position + offset < end ? input[position + offset] : 0;
+    }
+
+    /**
+     * Creates the literal of the token from the start position to the current
+     * position. ASCII tokens are copied without decoding; the others are
+     * decoded, trimming the surrogate of a four byte sequence which is split
+     * between two tokens.
+     */
+    private String literal(int startPosition, boolean startLow) {
+        if (ascii) {
+            return new String(input, startPosition, position - startPosition, StandardCharsets.ISO_8859_1);
+        }
+        int endPosition = low ? position + sequenceLength() : position;
+        String decoded = new String(input, startPosition, endPosition - startPosition, StandardCharsets.UTF_8);
+        return decoded.substring(startLow ? 1 : 0, low ? decoded.length() - 1 : decoded.length());
+    }
+
+}
@@ -0,0 +1,369 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table-driven alternative to {@link Lexer}. Instead of matching a regex for
+ * every character, each character is mapped to a character class through a
+ * precomputed table and tokens are recognized by a state machine whose
+ * transitions are looked up by {@code (state, class)}.
+ *
+ * The engine emits the same {@link Token}s as {@link Lexer#lex()} and throws
+ * {@link ParseException}s with the same messages and indices, so the two can
+ * be run against the same input and compared.
+ */
+public final class DfaLexer {
+
+    /*
+     * Character classes. Letters which are also escape characters (b, n, r, t)
+     * get their own class since they are the only letters which are accepted
+     * after a backslash.
+     */
+    static final int C_SPACE = 0;
+    static final int C_EOL = 1;
+    static final int C_LETTER = 2;
+    static final int C_ESCAPE_LETTER = 3;
+    static final int C_AT = 4;
+    static final int C_ZERO = 5;
+    static final int C_DIGIT = 6;
+    static final int C_MINUS = 7;
+    static final int C_UNDERSCORE = 8;
+    static final int C_DOT = 9;
+    static final int C_QUOTE = 10;
+    static final int C_DOUBLE_QUOTE = 11;
+    static final int C_BACKSLASH = 12;
+    static final int C_BANG = 13;
+    static final int C_EQUALS = 14;
+    static final int C_AMPERSAND = 15;
+    static final int C_PIPE = 16;
+    static final int C_OTHER = 17;
+    static final int C_TERMINATOR = 18;
+    static final int C_EOF = 19;
+    private static final int CLASS_COUNT = 20;
+
+    /*
+     * States of the machine. Every token starts in S_START.
+     */
+    static final int S_START = 0;
+    private static final int S_IDENTIFIER = 1;
+    private static final int S_SIGN = 2;
+    private static final int S_ZERO = 3;
+    private static final int S_INTEGER = 4;
+    private static final int S_FRACTION_START = 5;
+    private static final int S_FRACTION = 6;
+    private static final int S_CHARACTER_OPEN = 7;
+    private static final int S_CHARACTER_ESCAPE = 8;
+    private static final int S_CHARACTER_BODY = 9;
+    private static final int S_STRING = 10;
+    private static final int S_STRING_ESCAPE = 11;
+    private static final int S_NEEDS_EQUALS = 12;
+    private static final int S_AMPERSAND = 13;
+    private static final int S_PIPE = 14;
+    private static final int STATE_COUNT = 15;
+
+    /*
+     * Actions stored in the transition table. Values below ACCEPT consume the
+     * character and move to that state, the others end the token (with or
+     * without consuming the character) or report an error.
+     */
+    static final int ACCEPT = 0x100;
+    static final int ACCEPT_CONSUME = 0x200;
+    static final int ERROR = 0x400;
+    private static final int PAYLOAD = 0xFF;
+
+    private static final int E_INVALID_CHAR = 0;
+    private static final int E_LEADING_ZERO = 1;
+    private static final int E_TRAILING_DECIMAL = 2;
+    private static final int E_CLOSING_QUOTE = 3;
+    private static final int E_INVALID_STRING = 4;
+    private static final int E_INVALID_ESCAPE = 5;
+
+    private static final String[] ERROR_MESSAGES = {
+            "Invalid char",
+            "Leading 0",
+            "Cannot end in decimal",
+            "Expected closing quote",
+            "Invalid string",
+            "Invalid character"
+    };
+
+    /**
+     * Offset from the current index at which each error is reported. A leading
+     * zero is only detected after the zero has been consumed, but the regex
+     * lexer reports it at the zero itself.
+     */
+    private static final int[] ERROR_OFFSETS = {0, -1, 0, 0, 0, 0};
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final byte[] ASCII_CLASSES = new byte[128];
+    private static final int[] TRANSITIONS = new int[STATE_COUNT * CLASS_COUNT];
+
+    private final CharSequence input;
+    private final SymbolTable symbols;
+    private final int end;
+    private int index;
+
+    public DfaLexer(CharSequence input) {
+        this(input, new SymbolTable());
+    }
+
+    /**
+     * Creates a lexer which interns identifiers in the given table, so it can
+     * be shared with the later phases of the compilation.
+     */
+    public DfaLexer(CharSequence input, SymbolTable symbols) {
+        this(input, symbols, 0, input.length());
+    }
+
+    /**
+     * Creates a lexer over the range {@code [start, end)} of the input. Token
+     * indices remain absolute offsets into the input.
+     */
+    DfaLexer(CharSequence input, SymbolTable symbols, int start, int end) {
+        this.input = input;
+        this.symbols = symbols;
+        this.index = start;
+        this.end = end;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Lexes the entire input, skipping whitespace between tokens exactly like
+     * {@link Lexer#lex()}.
+     */
+    public List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        while (skipWhitespace()) {
+            tokens.add(lexToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes the entire input into a {@link TokenBuffer}, which records the
+     * type, offset and length of each token without creating {@link Token}
+     * objects or copying literals.
+     */
+    public TokenBuffer lexBuffer() {
+        TokenBuffer buffer = new TokenBuffer(input, symbols, Math.max(16, (end - index) / 4));
+        while (skipWhitespace()) {
+            int start = index;
+            Token.Type type = scan();
+            int symbol = type == Token.Type.IDENTIFIER ? symbols.intern(input, start, index) : -1;
+            buffer.add(type, start, index - start, symbol);
+        }
+        return buffer;
+    }
+
+    /**
+     * Lexes a single token starting at the current index, which should not be
+     * whitespace (as in {@link Lexer#lexToken()}, whitespace lexed here is an
+     * operator). Identifiers are interned, sharing the name of every earlier
+     * occurrence.
+     */
+    public Token lexToken() {
+        int start = index;
+        Token.Type type = scan();
+        if (type == Token.Type.IDENTIFIER) {
+            int symbol = symbols.intern(input, start, index);
+            return new Token(type, symbols.getName(symbol), start, symbol);
+        }
+        return new Token(type, input.subSequence(start, index).toString(), start);
+    }
+
+    /**
+     * Runs the machine from the current index to the end of the next token,
+     * returning its type.
+     */
+    private Token.Type scan() {
+        int state = S_START;
+        while (true) {
+            int action = TRANSITIONS[state * CLASS_COUNT + (index < end ? classify(input.charAt(index)) : C_EOF)];
+            if (action < ACCEPT) {
+                state = action;
+                index++;
+            } else if (action < ERROR) {
+                if (action >= ACCEPT_CONSUME) {
+                    index++;
+                }
+                return TYPES[action & PAYLOAD];
+            } else {
+                throw error(action, index);
+            }
+        }
+    }
+
+    /**
+     * Returns the current index, which is the start of the next token after
+     * {@link #skipWhitespace()}.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Advances past whitespace, returning true if there is another token.
+     */
+    boolean skipWhitespace() {
+        while (index < end) {
+            int cls = classify(input.charAt(index));
+            if (cls != C_SPACE && cls != C_EOL) {
+                return true;
+            }
+            index++;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the character class of the given character.
+     */
+    static int classify(char c) {
+        if (c < 128) {
+            return ASCII_CLASSES[c];
+        }
+        return c == '\u0085' || c == '\u2028' || c == '\u2029' ? C_TERMINATOR : C_OTHER;
+    }
+
+    /**
+     * Returns the action for the given state and character class.
+     */
+    static int transition(int state, int cls) {
+        return TRANSITIONS[state * CLASS_COUNT + cls];
+    }
+
+    /**
+     * Returns the token type of an accepting action.
+     */
+    static Token.Type acceptedType(int action) {
+        return TYPES[action & PAYLOAD];
+    }
+
+    /**
+     * Creates the exception for an error action at the given index.
+     */
+    static ParseException error(int action, int index) {
+        int code = action & PAYLOAD;
+        return new ParseException(ERROR_MESSAGES[code], index + ERROR_OFFSETS[code]);
+    }
+
+    private static void classes(int cls, char... chars) {
+        for (char c : chars) {
+            ASCII_CLASSES[c] = (byte) cls;
+        }
+    }
+
+    private static void fill(int state, int action) {
+        for (int cls = 0; cls < CLASS_COUNT; cls++) {
+            TRANSITIONS[state * CLASS_COUNT + cls] = action;
+        }
+    }
+
+    private static void on(int state, int action, int... classes) {
+        for (int cls : classes) {
+            TRANSITIONS[state * CLASS_COUNT + cls] = action;
+        }
+    }
+
+    private static int accept(Token.Type type) {
+        return ACCEPT | type.ordinal();
+    }
+
+    private static int acceptConsume(Token.Type type) {
+        return ACCEPT_CONSUME | type.ordinal();
+    }
+
+    private static int error(int code) {
+        return ERROR | code;
+    }
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_CLASSES[c] = C_OTHER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ASCII_CLASSES[c] = C_LETTER;
+            ASCII_CLASSES[Character.toLowerCase(c)] = C_LETTER;
+        }
+        for (char c = '1'; c <= '9'; c++) {
+            ASCII_CLASSES[c] = C_DIGIT;
+        }
+        classes(C_SPACE, ' ', '\b', '\t');
+        classes(C_EOL, '\n', '\r');
+        classes(C_ESCAPE_LETTER, 'b', 'n', 'r', 't');
+        classes(C_AT, '@');
+        classes(C_ZERO, '0');
+        classes(C_MINUS, '-');
+        classes(C_UNDERSCORE, '_');
+        classes(C_DOT, '.');
+        classes(C_QUOTE, '\'');
+        classes(C_DOUBLE_QUOTE, '"');
+        classes(C_BACKSLASH, '\\');
+        classes(C_BANG, '!');
+        classes(C_EQUALS, '=');
+        classes(C_AMPERSAND, '&');
+        classes(C_PIPE, '|');
+
+        //start of a token, see Lexer#lexToken
+        fill(S_START, acceptConsume(Token.Type.OPERATOR));
+        on(S_START, error(E_INVALID_CHAR), C_EOL, C_TERMINATOR, C_EOF);
+        on(S_START, S_IDENTIFIER, C_LETTER, C_ESCAPE_LETTER, C_AT);
+        on(S_START, S_ZERO, C_ZERO);
+        on(S_START, S_INTEGER, C_DIGIT);
+        on(S_START, S_SIGN, C_MINUS);
+        on(S_START, S_CHARACTER_OPEN, C_QUOTE);
+        on(S_START, S_STRING, C_DOUBLE_QUOTE);
+        on(S_START, S_NEEDS_EQUALS, C_BANG, C_EQUALS);
+        on(S_START, S_AMPERSAND, C_AMPERSAND);
+        on(S_START, S_PIPE, C_PIPE);
+
+        //identifiers
+        fill(S_IDENTIFIER, accept(Token.Type.IDENTIFIER));
+        on(S_IDENTIFIER, S_IDENTIFIER, C_LETTER, C_ESCAPE_LETTER, C_ZERO, C_DIGIT, C_UNDERSCORE, C_MINUS);
+
+        //numbers
+        fill(S_SIGN, accept(Token.Type.INTEGER));
+        on(S_SIGN, S_ZERO, C_ZERO);
+        on(S_SIGN, S_INTEGER, C_DIGIT);
+        on(S_SIGN, S_FRACTION_START, C_DOT);
+        fill(S_ZERO, error(E_LEADING_ZERO));
+        on(S_ZERO, S_FRACTION_START, C_DOT);
+        fill(S_INTEGER, accept(Token.Type.INTEGER));
+        on(S_INTEGER, S_INTEGER, C_ZERO, C_DIGIT);
+        on(S_INTEGER, S_FRACTION_START, C_DOT);
+        fill(S_FRACTION_START, error(E_TRAILING_DECIMAL));
+        on(S_FRACTION_START, S_FRACTION, C_ZERO, C_DIGIT);
+        fill(S_FRACTION, accept(Token.Type.DECIMAL));
+        on(S_FRACTION, S_FRACTION, C_ZERO, C_DIGIT);
+
+        //characters
+        fill(S_CHARACTER_OPEN, S_CHARACTER_BODY);
+        on(S_CHARACTER_OPEN, S_CHARACTER_ESCAPE, C_BACKSLASH);
+        on(S_CHARACTER_OPEN, error(E_INVALID_CHAR), C_QUOTE, C_EOL, C_EOF);
+        fill(S_CHARACTER_ESCAPE, error(E_INVALID_ESCAPE));
+        on(S_CHARACTER_ESCAPE, S_CHARACTER_BODY, C_ESCAPE_LETTER, C_QUOTE, C_DOUBLE_QUOTE, C_BACKSLASH);
+        fill(S_CHARACTER_BODY, error(E_CLOSING_QUOTE));
+        on(S_CHARACTER_BODY, acceptConsume(Token.Type.CHARACTER), C_QUOTE);
+
+        //strings
+        fill(S_STRING, S_STRING);
+        on(S_STRING, acceptConsume(Token.Type.STRING), C_DOUBLE_QUOTE);
+        on(S_STRING, S_STRING_ESCAPE, C_BACKSLASH);
+        on(S_STRING, error(E_INVALID_STRING), C_EOL, C_EOF);
+        fill(S_STRING_ESCAPE, error(E_INVALID_ESCAPE));
+        on(S_STRING_ESCAPE, S_STRING, C_ESCAPE_LETTER, C_QUOTE, C_DOUBLE_QUOTE, C_BACKSLASH);
+
+        //two character operators
+        fill(S_NEEDS_EQUALS, accept(Token.Type.OPERATOR));
+        on(S_NEEDS_EQUALS, acceptConsume(Token.Type.OPERATOR), C_EQUALS);
+        fill(S_AMPERSAND, accept(Token.Type.OPERATOR));
+        on(S_AMPERSAND, acceptConsume(Token.Type.OPERATOR), C_AMPERSAND);
+        fill(S_PIPE, accept(Token.Type.OPERATOR));
+        on(S_PIPE, acceptConsume(Token.Type.OPERATOR), C_PIPE);
+    }
+
+}
@@ -8,8 +8,15 @@ import java.util.Map;
 
 public final class Environment {
 
+    /**
+     * The type of objects created from a plain value. Nothing is ever defined
+     * in its scope, so it is shared rather than allocating a type and a scope
+     * for every value.
+     */
+    private static final Type UNKNOWN = new Type("Unknown", "Unknown", new Scope(null));
+
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        return new PlcObject(UNKNOWN, UNKNOWN.getScope(), value);
     }
 
     public static final PlcObject NIL = new PlcObject(Type.NIL, new Scope(null), new Object() {
@@ -131,6 +138,8 @@ public final class Environment {
         private final boolean mutable;
         private final Type type;
         private PlcObject value;
+        private int depth = -1;
+        private int index = -1;
 
         public Variable(String name, boolean mutable, PlcObject value) {
             this(name, name, Type.ANY, mutable, value);
@@ -168,6 +177,28 @@ public final class Environment {
             this.value = value;
         }
 
+        /**
+         * Returns the static depth of the frame the variable is stored in,
+         * which is 0 for globals and 1 for the locals of a function, or -1 if
+         * the variable has no slot and is looked up by name.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Returns the index of the variable in its frame, or -1 if the
+         * variable has no slot.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public void setSlot(int depth, int index) {
+            this.depth = depth;
+            this.index = index;
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Variable &&
@@ -197,6 +228,7 @@ public final class Environment {
         private final List<Type> parameterTypes;
         private final Type returnType;
         private final java.util.function.Function<List<PlcObject>, PlcObject> function;
+        private int index = -1;
 
         public Function(String name, int arity, java.util.function.Function<List<PlcObject>, PlcObject> function) {
             this(name, name, new ArrayList<>(), Type.ANY, function);
@@ -234,6 +266,18 @@ public final class Environment {
             return parameterTypes.size();
         }
 
+        /**
+         * Returns the index of the function in the function table of the
+         * source defining it, or -1 if calls to it are looked up by name.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
         public PlcObject invoke(List<PlcObject> arguments) {
             return function.apply(arguments);
         }
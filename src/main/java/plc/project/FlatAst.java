@@ -0,0 +1,506 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A compact encoding of an {@link Ast.Source} in a few primitive arrays
+ * instead of one object per node.
+ *
+ * Nodes are stored in prefix order, so the first child of a node is the node
+ * after it and a subtree is a contiguous range. Each node has a kind, a
+ * symbol and a value, plus the index following its subtree, which is also
+ * the index of its next sibling. Names, type names and operators are symbols
+ * of a {@link SymbolTable}, and literal values are indices into a pool of
+ * distinct values. Lists (such as the statements of a block) are
+ * {@link #BLOCK} nodes and absent optional expressions are {@link #NONE}
+ * nodes, so every node has a fixed shape:
+ *
+ * <ul>
+ *     <li>{@link #SOURCE}: the globals, then the functions.</li>
+ *     <li>{@link #MUTABLE_GLOBAL}/{@link #IMMUTABLE_GLOBAL}: symbol name,
+ *     value type name; the value.</li>
+ *     <li>{@link #FUNCTION}: symbol name, value return type name; the
+ *     parameters, then the block of statements.</li>
+ *     <li>{@link #PARAMETER}: symbol name, value type name.</li>
+ *     <li>{@link #DECLARATION}: symbol name, value type name; the value.</li>
+ *     <li>{@link #EXPRESSION_STATEMENT}, {@link #RETURN}: the expression.</li>
+ *     <li>{@link #ASSIGNMENT}: the receiver and the value.</li>
+ *     <li>{@link #IF}: the condition and the then and else blocks.</li>
+ *     <li>{@link #SWITCH}: the condition, then the cases.</li>
+ *     <li>{@link #CASE}: the value, then the block.</li>
+ *     <li>{@link #WHILE}: the condition and the block.</li>
+ *     <li>{@link #LITERAL}: value the literal in the pool.</li>
+ *     <li>{@link #GROUP}: the expression.</li>
+ *     <li>{@link #BINARY}: symbol operator; the left and right operands.</li>
+ *     <li>{@link #ACCESS}: symbol name; the offset.</li>
+ *     <li>{@link #CALL}: symbol name; the arguments.</li>
+ *     <li>{@link #LIST}: the values.</li>
+ * </ul>
+ *
+ * A missing symbol or value is {@code -1}. Only the syntax is encoded; the
+ * fields set by the {@link Analyzer} are not.
+ */
+public final class FlatAst {
+
+    public static final int SOURCE = 0;
+    public static final int MUTABLE_GLOBAL = 1;
+    public static final int IMMUTABLE_GLOBAL = 2;
+    public static final int FUNCTION = 3;
+    public static final int PARAMETER = 4;
+    public static final int BLOCK = 5;
+    public static final int NONE = 6;
+    public static final int EXPRESSION_STATEMENT = 7;
+    public static final int DECLARATION = 8;
+    public static final int ASSIGNMENT = 9;
+    public static final int IF = 10;
+    public static final int SWITCH = 11;
+    public static final int CASE = 12;
+    public static final int WHILE = 13;
+    public static final int RETURN = 14;
+    public static final int LITERAL = 15;
+    public static final int GROUP = 16;
+    public static final int BINARY = 17;
+    public static final int ACCESS = 18;
+    public static final int CALL = 19;
+    public static final int LIST = 20;
+
+    private final SymbolTable symbols;
+    private final Object[] literals;
+    private final byte[] kinds;
+    private final int[] names;
+    private final int[] values;
+    private final int[] ends;
+
+    private FlatAst(Builder builder) {
+        symbols = builder.symbols;
+        literals = builder.literals.toArray();
+        kinds = Arrays.copyOf(builder.kinds, builder.size);
+        names = Arrays.copyOf(builder.names, builder.size);
+        values = Arrays.copyOf(builder.values, builder.size);
+        ends = Arrays.copyOf(builder.ends, builder.size);
+    }
+
+    /**
+     * Encodes the given tree.
+     */
+    public static FlatAst of(Ast.Source source) {
+        Builder builder = new Builder();
+        builder.source(source);
+        return new FlatAst(builder);
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * Returns the symbols of the names, type names and operators.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public int getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Returns the symbol of the node, or {@code -1} if it has none.
+     */
+    public int getSymbol(int node) {
+        return names[node];
+    }
+
+    /**
+     * Returns the name, operator or type name of a node, depending on its
+     * kind, or {@code null} if it has none.
+     */
+    public String getName(int node) {
+        return names[node] < 0 ? null : symbols.getName(names[node]);
+    }
+
+    /**
+     * Returns the type name of a global, function, parameter or declaration,
+     * or {@code null} if it has none.
+     */
+    public String getTypeName(int node) {
+        return values[node] < 0 ? null : symbols.getName(values[node]);
+    }
+
+    /**
+     * Returns the value of a literal.
+     */
+    public Object getLiteral(int node) {
+        return values[node] < 0 ? null : literals[values[node]];
+    }
+
+    /**
+     * Returns the index following the subtree of the node, which is its next
+     * sibling if it has one.
+     */
+    public int getEnd(int node) {
+        return ends[node];
+    }
+
+    /**
+     * Returns the first child of the node, or {@code -1} if it has none.
+     */
+    public int getFirstChild(int node) {
+        return node + 1 < ends[node] ? node + 1 : -1;
+    }
+
+    /**
+     * Returns a cursor positioned at the root.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Decodes the tree back into {@link Ast} objects.
+     */
+    public Ast.Source toAst() {
+        List<Ast.Global> globals = new ArrayList<>();
+        List<Ast.Function> functions = new ArrayList<>();
+        for (int node = 1; node < ends[0]; node = ends[node]) {
+            if (kinds[node] == FUNCTION) {
+                functions.add(toFunction(node));
+            } else {
+                globals.add(new Ast.Global(getName(node), getTypeName(node), kinds[node] == MUTABLE_GLOBAL, toOptional(node + 1)));
+            }
+        }
+        return new Ast.Source(globals, functions);
+    }
+
+    private Ast.Function toFunction(int node) {
+        List<String> parameters = new ArrayList<>();
+        List<String> parameterTypeNames = new ArrayList<>();
+        int child = node + 1;
+        for (; kinds[child] == PARAMETER; child = ends[child]) {
+            parameters.add(getName(child));
+            parameterTypeNames.add(getTypeName(child));
+        }
+        return new Ast.Function(getName(node), parameters, parameterTypeNames, Optional.ofNullable(getTypeName(node)), toStatements(child));
+    }
+
+    private List<Ast.Statement> toStatements(int block) {
+        List<Ast.Statement> statements = new ArrayList<>();
+        for (int node = block + 1; node < ends[block]; node = ends[node]) {
+            statements.add(toStatement(node));
+        }
+        return statements;
+    }
+
+    private Ast.Statement toStatement(int node) {
+        int first = node + 1;
+        switch (kinds[node]) {
+            case EXPRESSION_STATEMENT:
+                return new Ast.Statement.Expression(toExpression(first));
+            case DECLARATION:
+                return new Ast.Statement.Declaration(getName(node), Optional.ofNullable(getTypeName(node)), toOptional(first));
+            case ASSIGNMENT:
+                return new Ast.Statement.Assignment(toExpression(first), toExpression(ends[first]));
+            case IF:
+                return new Ast.Statement.If(toExpression(first), toStatements(ends[first]), toStatements(ends[ends[first]]));
+            case SWITCH:
+                List<Ast.Statement.Case> cases = new ArrayList<>();
+                for (int child = ends[first]; child < ends[node]; child = ends[child]) {
+                    cases.add(toCase(child));
+                }
+                return new Ast.Statement.Switch(toExpression(first), cases);
+            case CASE:
+                return toCase(node);
+            case WHILE:
+                return new Ast.Statement.While(toExpression(first), toStatements(ends[first]));
+            case RETURN:
+                return new Ast.Statement.Return(toExpression(first));
+            default:
+                throw new AssertionError("Invalid statement kind " + kinds[node] + ".");
+        }
+    }
+
+    private Ast.Statement.Case toCase(int node) {
+        return new Ast.Statement.Case(toOptional(node + 1), toStatements(ends[node + 1]));
+    }
+
+    private Optional<Ast.Expression> toOptional(int node) {
+        return kinds[node] == NONE ? Optional.empty() : Optional.of(toExpression(node));
+    }
+
+    private Ast.Expression toExpression(int node) {
+        int first = node + 1;
+        switch (kinds[node]) {
+            case LITERAL:
+                return new Ast.Expression.Literal(getLiteral(node));
+            case GROUP:
+                return new Ast.Expression.Group(toExpression(first));
+            case BINARY:
+                return new Ast.Expression.Binary(getName(node), toExpression(first), toExpression(ends[first]));
+            case ACCESS:
+                return new Ast.Expression.Access(toOptional(first), getName(node));
+            case CALL:
+                return new Ast.Expression.Function(getName(node), toExpressions(node));
+            case LIST:
+                return new Ast.Expression.PlcList(toExpressions(node));
+            default:
+                throw new AssertionError("Invalid expression kind " + kinds[node] + ".");
+        }
+    }
+
+    private List<Ast.Expression> toExpressions(int parent) {
+        List<Ast.Expression> expressions = new ArrayList<>();
+        for (int node = parent + 1; node < ends[parent]; node = ends[node]) {
+            expressions.add(toExpression(node));
+        }
+        return expressions;
+    }
+
+    /**
+     * Walks the tree without allocating, keeping the path from the root to
+     * the current node.
+     */
+    public final class Cursor {
+
+        private int[] path = new int[16];
+        private int depth = 0;
+
+        private Cursor() {}
+
+        /**
+         * Returns the index of the current node.
+         */
+        public int getNode() {
+            return path[depth];
+        }
+
+        public int getKind() {
+            return kinds[path[depth]];
+        }
+
+        public String getName() {
+            return FlatAst.this.getName(path[depth]);
+        }
+
+        public String getTypeName() {
+            return FlatAst.this.getTypeName(path[depth]);
+        }
+
+        public Object getLiteral() {
+            return FlatAst.this.getLiteral(path[depth]);
+        }
+
+        /**
+         * Moves to the first child, returning false (and staying) if there is
+         * none.
+         */
+        public boolean firstChild() {
+            int child = getFirstChild(path[depth]);
+            if (child < 0) {
+                return false;
+            }
+            if (++depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = child;
+            return true;
+        }
+
+        /**
+         * Moves to the next sibling, returning false (and staying) if there
+         * is none.
+         */
+        public boolean nextSibling() {
+            if (depth == 0 || ends[path[depth]] >= ends[path[depth - 1]]) {
+                return false;
+            }
+            path[depth] = ends[path[depth]];
+            return true;
+        }
+
+        /**
+         * Moves to the parent, returning false (and staying) at the root.
+         */
+        public boolean parent() {
+            if (depth == 0) {
+                return false;
+            }
+            depth--;
+            return true;
+        }
+
+    }
+
+    /**
+     * Appends nodes in prefix order, filling in the end of each node once its
+     * children have been appended.
+     */
+    private static final class Builder {
+
+        private final SymbolTable symbols = new SymbolTable();
+        private final List<Object> literals = new ArrayList<>();
+        private final Map<Object, Integer> pool = new HashMap<>();
+        private byte[] kinds = new byte[256];
+        private int[] names = new int[256];
+        private int[] values = new int[256];
+        private int[] ends = new int[256];
+        private int size = 0;
+
+        private int open(int kind, String name, int value) {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            kinds[size] = (byte) kind;
+            names[size] = name == null ? -1 : symbols.intern(name);
+            values[size] = value;
+            return size++;
+        }
+
+        private void close(int node) {
+            ends[node] = size;
+        }
+
+        private int symbol(String name) {
+            return name == null ? -1 : symbols.intern(name);
+        }
+
+        private void source(Ast.Source source) {
+            int node = open(SOURCE, null, -1);
+            for (Ast.Global global : source.getGlobals()) {
+                int child = open(global.getMutable() ? MUTABLE_GLOBAL : IMMUTABLE_GLOBAL, global.getName(), symbol(global.getTypeName()));
+                optional(global.getValue());
+                close(child);
+            }
+            for (Ast.Function function : source.getFunctions()) {
+                if (function.getParameters().size() != function.getParameterTypeNames().size()) {
+                    throw new IllegalArgumentException("Function " + function.getName() + " has a different number of parameters and parameter types.");
+                }
+                int child = open(FUNCTION, function.getName(), symbol(function.getReturnTypeName().orElse(null)));
+                for (int i = 0; i < function.getParameters().size(); i++) {
+                    close(open(PARAMETER, function.getParameters().get(i), symbol(function.getParameterTypeNames().get(i))));
+                }
+                block(function.getStatements());
+                close(child);
+            }
+            close(node);
+        }
+
+        private void block(List<Ast.Statement> statements) {
+            int node = open(BLOCK, null, -1);
+            for (Ast.Statement statement : statements) {
+                statement(statement);
+            }
+            close(node);
+        }
+
+        private void statement(Ast.Statement statement) {
+            int node;
+            if (statement instanceof Ast.Statement.Expression) {
+                node = open(EXPRESSION_STATEMENT, null, -1);
+                expression(((Ast.Statement.Expression) statement).getExpression());
+            } else if (statement instanceof Ast.Statement.Declaration) {
+                Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) statement;
+                node = open(DECLARATION, declaration.getName(), symbol(declaration.getTypeName().orElse(null)));
+                optional(declaration.getValue());
+            } else if (statement instanceof Ast.Statement.Assignment) {
+                node = open(ASSIGNMENT, null, -1);
+                expression(((Ast.Statement.Assignment) statement).getReceiver());
+                expression(((Ast.Statement.Assignment) statement).getValue());
+            } else if (statement instanceof Ast.Statement.If) {
+                node = open(IF, null, -1);
+                expression(((Ast.Statement.If) statement).getCondition());
+                block(((Ast.Statement.If) statement).getThenStatements());
+                block(((Ast.Statement.If) statement).getElseStatements());
+            } else if (statement instanceof Ast.Statement.Switch) {
+                node = open(SWITCH, null, -1);
+                expression(((Ast.Statement.Switch) statement).getCondition());
+                for (Ast.Statement.Case c : ((Ast.Statement.Switch) statement).getCases()) {
+                    statement(c);
+                }
+            } else if (statement instanceof Ast.Statement.Case) {
+                node = open(CASE, null, -1);
+                optional(((Ast.Statement.Case) statement).getValue());
+                block(((Ast.Statement.Case) statement).getStatements());
+            } else if (statement instanceof Ast.Statement.While) {
+                node = open(WHILE, null, -1);
+                expression(((Ast.Statement.While) statement).getCondition());
+                block(((Ast.Statement.While) statement).getStatements());
+            } else if (statement instanceof Ast.Statement.Return) {
+                node = open(RETURN, null, -1);
+                expression(((Ast.Statement.Return) statement).getValue());
+            } else {
+                throw new IllegalArgumentException("Unsupported statement " + statement.getClass().getName() + ".");
+            }
+            close(node);
+        }
+
+        private void optional(Optional<Ast.Expression> expression) {
+            if (expression.isPresent()) {
+                expression(expression.get());
+            } else {
+                close(open(NONE, null, -1));
+            }
+        }
+
+        private void expression(Ast.Expression expression) {
+            int node;
+            if (expression instanceof Ast.Expression.Literal) {
+                node = open(LITERAL, null, literal(((Ast.Expression.Literal) expression).getLiteral()));
+            } else if (expression instanceof Ast.Expression.Group) {
+                node = open(GROUP, null, -1);
+                expression(((Ast.Expression.Group) expression).getExpression());
+            } else if (expression instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+                node = open(BINARY, binary.getOperator(), -1);
+                expression(binary.getLeft());
+                expression(binary.getRight());
+            } else if (expression instanceof Ast.Expression.Access) {
+                Ast.Expression.Access access = (Ast.Expression.Access) expression;
+                node = open(ACCESS, access.getName(), -1);
+                optional(access.getOffset());
+            } else if (expression instanceof Ast.Expression.Function) {
+                node = open(CALL, ((Ast.Expression.Function) expression).getName(), -1);
+                for (Ast.Expression argument : ((Ast.Expression.Function) expression).getArguments()) {
+                    expression(argument);
+                }
+            } else if (expression instanceof Ast.Expression.PlcList) {
+                node = open(LIST, null, -1);
+                for (Ast.Expression value : ((Ast.Expression.PlcList) expression).getValues()) {
+                    expression(value);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported expression " + expression.getClass().getName() + ".");
+            }
+            close(node);
+        }
+
+        /**
+         * Returns the index of the value in the literal pool, adding it if it
+         * is new. {@code null} (for {@code NIL}) is {@code -1}.
+         */
+        private int literal(Object value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer index = pool.get(value);
+            if (index == null) {
+                index = literals.size();
+                literals.add(value);
+                pool.put(value, index);
+            }
+            return index;
+        }
+
+    }
+
+}
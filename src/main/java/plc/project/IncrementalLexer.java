@@ -0,0 +1,335 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Keeps the tokens of a source up to date as it is edited, re-lexing only the
+ * part of the source an edit can affect.
+ *
+ * The {@link DfaLexer} looks at most one character past the end of a token,
+ * so tokens which end before the edit are unchanged. Lexing restarts at the
+ * first token which ends at or after the edit and stops as soon as a new
+ * token starts at the same place as an old token in the unchanged text after
+ * the edit, since the lexer starts every token in the same state and the rest
+ * of the stream is therefore the same.
+ *
+ * Both the text and the tokens are kept in gap buffers positioned at the last
+ * edit. Tokens after the gap store their offset from the end of the text, so
+ * they are shifted by an edit without being touched. The cost of an edit
+ * depends on the size of the edit (and its distance from the previous one),
+ * not on the size of the source.
+ *
+ * Identifiers are interned in a {@link SymbolTable} shared by all edits, which
+ * is rebuilt from the current tokens once most of its names are no longer
+ * used, so a long editing session does not keep every name it has seen.
+ */
+public final class IncrementalLexer {
+
+    private SymbolTable symbols = new SymbolTable();
+    private final GapText text;
+    private Token[] tokens = new Token[16];
+    private int[] starts = new int[16];
+    private int before = 0;
+    private int after = 16;
+    private boolean complete = true;
+    private int changedStart = 0;
+    private int changedEnd = 0;
+
+    /**
+     * Lexes the initial source, throwing a {@link ParseException} if it is
+     * invalid.
+     */
+    public IncrementalLexer(CharSequence source) {
+        text = new GapText(source.length() + 64);
+        edit(0, 0, source);
+    }
+
+    /**
+     * Returns a view of the current source.
+     */
+    public CharSequence getSource() {
+        return text;
+    }
+
+    /**
+     * Returns a read-only view of the current tokens, which reflects later
+     * edits.
+     */
+    public List<Token> getTokens() {
+        return new TokenList();
+    }
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} with the inserted
+     * text and updates the tokens, returning a view of them.
+     *
+     * If the edited source is invalid the {@link ParseException} of the lexer
+     * is thrown. The edit is still applied, but the tokens only go up to the
+     * error; the next edit re-lexes everything after its restart point.
+     */
+    public List<Token> edit(int offset, int removed, CharSequence inserted) {
+        int length = text.length();
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") out of bounds for length " + length);
+        }
+        moveGap(restart(offset), length);
+        changedStart = before;
+        text.replace(offset, removed, inserted);
+        length = text.length();
+        //text from here on was after the edit, so old tokens starting here are
+        //still valid
+        int unchanged = offset + inserted.length();
+        int from = before == 0 ? 0 : starts[before - 1] + tokens[before - 1].getLength();
+        DfaLexer lexer = new DfaLexer(text, symbols, from, length);
+        try {
+            while (lexer.skipWhitespace()) {
+                int start = lexer.getIndex();
+                while (after < tokens.length && starts[after] + length < start) {
+                    tokens[after++] = null;
+                }
+                if (after < tokens.length && starts[after] + length == start) {
+                    if (start >= unchanged && complete) {
+                        changedEnd = before;
+                        return getTokens();
+                    }
+                    tokens[after++] = null;
+                }
+                insert(lexer.lexToken());
+            }
+            discard(true);
+        } catch (ParseException e) {
+            discard(false);
+            throw e;
+        } finally {
+            compact();
+        }
+        return getTokens();
+    }
+
+    /**
+     * Discards the old tokens remaining after the gap, recording whether the
+     * tokens now reach the end of the text.
+     */
+    private void discard(boolean complete) {
+        Arrays.fill(tokens, after, tokens.length, null);
+        after = tokens.length;
+        this.complete = complete;
+        changedEnd = before;
+    }
+
+    /**
+     * Returns the index of the first token the last edit re-lexed. Tokens
+     * before it are the same as before the edit, though they are new objects
+     * if the symbol table was rebuilt.
+     */
+    int getChangedStart() {
+        return changedStart;
+    }
+
+    /**
+     * Returns the index following the last token the last edit re-lexed.
+     * Tokens from here on are the tokens which followed the edit before it,
+     * shifted by the change in the number of tokens.
+     */
+    int getChangedEnd() {
+        return changedEnd;
+    }
+
+    /**
+     * Rebuilds the symbol table from the current tokens if fewer than half of
+     * its symbols are still used, recreating the identifier tokens with their
+     * new symbols.
+     */
+    private void compact() {
+        int size = before + tokens.length - after;
+        if (symbols.size() <= 2 * size + 64) {
+            return;
+        }
+        symbols = new SymbolTable();
+        for (int i = 0; i < tokens.length; i++) {
+            Token token = tokens[i];
+            if (token != null && token.getSymbol() >= 0) {
+                int symbol = symbols.intern(token.getLiteral());
+                tokens[i] = new Token(token.getType(), symbols.getName(symbol), token.getIndex(), symbol);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first token which ends at or after the offset,
+     * which is the first token the edit may change.
+     */
+    private int restart(int offset) {
+        int low = 0;
+        int high = before + tokens.length - after;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Token token = get(mid);
+            if (token.getIndex() + token.getLength() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the gap to the given token index, converting the offsets of the
+     * tokens which cross it. The length is the current length of the text.
+     */
+    private void moveGap(int index, int length) {
+        //the slots are the same if the gap is empty, so clear before storing
+        while (before > index) {
+            Token token = tokens[--before];
+            int start = starts[before] - length;
+            tokens[before] = null;
+            tokens[--after] = token;
+            starts[after] = start;
+        }
+        while (before < index) {
+            Token token = get(before);
+            int start = starts[after] + length;
+            tokens[after++] = null;
+            tokens[before] = token;
+            starts[before++] = start;
+        }
+    }
+
+    /**
+     * Inserts a token at the start of the gap, growing the arrays if the gap
+     * is full.
+     */
+    private void insert(Token token) {
+        if (before == after) {
+            int capacity = tokens.length * 2;
+            int moved = tokens.length - after;
+            Token[] grown = Arrays.copyOf(tokens, capacity);
+            int[] grownStarts = Arrays.copyOf(starts, capacity);
+            System.arraycopy(tokens, after, grown, capacity - moved, moved);
+            System.arraycopy(starts, after, grownStarts, capacity - moved, moved);
+            Arrays.fill(grown, after, capacity - moved, null);
+            tokens = grown;
+            starts = grownStarts;
+            after = capacity - moved;
+        }
+        tokens[before] = token;
+        starts[before] = token.getIndex();
+        before++;
+    }
+
+    /**
+     * Returns the token at the given index, recreating a token after the gap
+     * if its offset has shifted since it was lexed.
+     */
+    private Token get(int index) {
+        if (index < before) {
+            return tokens[index];
+        }
+        int slot = index - before + after;
+        int start = starts[slot] + text.length();
+        Token token = tokens[slot];
+        if (token.getIndex() != start) {
+            token = new Token(token.getType(), token.getLiteral(), start, token.getSymbol());
+            tokens[slot] = token;
+        }
+        return token;
+    }
+
+    private final class TokenList extends AbstractList<Token> implements RandomAccess {
+
+        @Override
+        public Token get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+            return IncrementalLexer.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return before + tokens.length - after;
+        }
+
+    }
+
+    /**
+     * The source text, stored with a gap at the last edit so that nearby
+     * edits do not move the rest of the text.
+     */
+    private static final class GapText implements CharSequence {
+
+        private char[] chars;
+        private int gapStart = 0;
+        private int gapEnd;
+
+        private GapText(int capacity) {
+            chars = new char[capacity];
+            gapEnd = capacity;
+        }
+
+        @Override
+        public int length() {
+            return chars.length - (gapEnd - gapStart);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+        }
+
+        @Override
+        public String subSequence(int start, int end) {
+            if (end <= gapStart) {
+                return new String(chars, start, end - start);
+            } else if (start >= gapStart) {
+                return new String(chars, start + gapEnd - gapStart, end - start);
+            }
+            return new StringBuilder(end - start)
+                    .append(chars, start, gapStart - start)
+                    .append(chars, gapEnd, end - gapStart)
+                    .toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length());
+        }
+
+        private void replace(int offset, int removed, CharSequence inserted) {
+            moveGap(offset);
+            gapEnd += removed;
+            if (gapEnd - gapStart < inserted.length()) {
+                int capacity = Math.max(chars.length * 2, length() + inserted.length() + 64);
+                char[] grown = new char[capacity];
+                int moved = chars.length - gapEnd;
+                System.arraycopy(chars, 0, grown, 0, gapStart);
+                System.arraycopy(chars, gapEnd, grown, capacity - moved, moved);
+                chars = grown;
+                gapEnd = capacity - moved;
+            }
+            for (int i = 0; i < inserted.length(); i++) {
+                chars[gapStart++] = inserted.charAt(i);
+            }
+        }
+
+        private void moveGap(int offset) {
+            if (offset < gapStart) {
+                int moved = gapStart - offset;
+                System.arraycopy(chars, offset, chars, gapEnd - moved, moved);
+                gapStart -= moved;
+                gapEnd -= moved;
+            } else if (offset > gapStart) {
+                int moved = offset - gapStart;
+                System.arraycopy(chars, gapEnd, chars, gapStart, moved);
+                gapStart += moved;
+                gapEnd += moved;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the {@link Ast.Source} of a source up to date as it is edited,
+ * reparsing only the globals and functions an edit can affect.
+ *
+ * The tokens are kept by an {@link IncrementalLexer}, which reports the
+ * range of tokens each edit re-lexed. Every global and function parsed is
+ * recorded with its range of tokens. A declaration only depends on its own
+ * tokens and the one following it, so after an edit every declaration
+ * outside the re-lexed range is reused as-is (shifted to its new position)
+ * by {@link Parser#parseSource(Parser.Declarations)}, and only the
+ * declarations around the edit are parsed again.
+ */
+public final class IncrementalParser {
+
+    private final IncrementalLexer lexer;
+    private Table table = new Table(16);
+    private Ast.Source source;
+
+    /**
+     * Lexes and parses the initial source, throwing a {@link ParseException}
+     * if it is invalid.
+     */
+    public IncrementalParser(CharSequence text) {
+        lexer = new IncrementalLexer(text);
+        parse();
+    }
+
+    /**
+     * Returns a view of the current text.
+     */
+    public CharSequence getText() {
+        return lexer.getSource();
+    }
+
+    /**
+     * Returns the current tree, which is that of the last edit which parsed
+     * successfully.
+     */
+    public Ast.Source getSource() {
+        return source;
+    }
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} with the inserted
+     * text and reparses the affected declarations, returning the new tree.
+     *
+     * If the edited source is invalid the {@link ParseException} of the lexer
+     * or parser is thrown. The edit is still applied, and the next edit
+     * reparses whatever the error left unparsed.
+     */
+    public Ast.Source edit(int offset, int removed, CharSequence inserted) {
+        int size = lexer.getTokens().size();
+        try {
+            lexer.edit(offset, removed, inserted);
+        } finally {
+            int delta = lexer.getTokens().size() - size;
+            table.invalidate(lexer.getChangedStart(), lexer.getChangedEnd() - delta, delta);
+        }
+        return parse();
+    }
+
+    /**
+     * Parses the current tokens, reusing the declarations in the table and
+     * replacing it with the declarations of the new tree.
+     */
+    private Ast.Source parse() {
+        Table next = new Table(Math.max(table.size, 16));
+        try {
+            source = new Parser(lexer.getTokens()).parseSource(new Parser.Declarations() {
+
+                @Override
+                public Ast get(int start) {
+                    return table.get(start);
+                }
+
+                @Override
+                public int getEnd(int start) {
+                    return table.getEnd(start);
+                }
+
+                @Override
+                public void put(int start, int end, Ast declaration) {
+                    next.add(start, end, declaration);
+                }
+
+            });
+            table = next;
+            return source;
+        } catch (ParseException e) {
+            table = table.merge(next);
+            throw e;
+        }
+    }
+
+    /**
+     * Declarations sorted by the index of their first token, along with the
+     * index following their last token.
+     */
+    private static final class Table {
+
+        private int[] starts;
+        private int[] ends;
+        private Ast[] declarations;
+        private int size = 0;
+
+        private Table(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+            declarations = new Ast[capacity];
+        }
+
+        private Ast get(int start) {
+            int i = Arrays.binarySearch(starts, 0, size, start);
+            return i >= 0 ? declarations[i] : null;
+        }
+
+        private int getEnd(int start) {
+            return ends[Arrays.binarySearch(starts, 0, size, start)];
+        }
+
+        /**
+         * Appends a declaration, which must start after the last one.
+         */
+        private void add(int start, int end, Ast declaration) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                declarations = Arrays.copyOf(declarations, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            declarations[size++] = declaration;
+        }
+
+        /**
+         * Removes the declarations which depend on a token in the changed
+         * range {@code [from, to)} of old indices, and shifts those after it
+         * by the change in the number of tokens. A declaration depends on the
+         * token at its end as well, which is its lookahead.
+         */
+        private void invalidate(int from, int to, int delta) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] < from) {
+                    kept++;
+                } else if (starts[i] >= to) {
+                    starts[kept] = starts[i] + delta;
+                    ends[kept] = ends[i] + delta;
+                    declarations[kept++] = declarations[i];
+                }
+            }
+            Arrays.fill(declarations, kept, size, null);
+            size = kept;
+        }
+
+        /**
+         * Returns the declarations of both tables, taking the other one's
+         * where both have a declaration at the same token.
+         */
+        private Table merge(Table other) {
+            Table merged = new Table(Math.max(size + other.size, 16));
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || i < size && starts[i] < other.starts[j]) {
+                    merged.add(starts[i], ends[i], declarations[i]);
+                    i++;
+                } else {
+                    if (i < size && starts[i] == other.starts[j]) {
+                        i++;
+                    }
+                    merged.add(other.starts[j], other.ends[j], other.declarations[j]);
+                    j++;
+                }
+            }
+            return merged;
+        }
+
+    }
+
+}
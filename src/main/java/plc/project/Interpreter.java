@@ -8,8 +8,46 @@ import java.util.stream.Collectors;
 
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
+    /**
+     * The results of boolean operators, which are shared rather than created
+     * for every comparison since objects are immutable.
+     */
+    private static final Environment.PlcObject TRUE = Environment.create(true);
+    private static final Environment.PlcObject FALSE = Environment.create(false);
+
     private Scope scope = new Scope(null);
 
+    /**
+     * The frames of variables the analyzer gave a slot: the globals, and the
+     * locals of the function being called. Globals are also defined in the
+     * scope, and their slots hold the variables of the scope so both agree.
+     * The frame is null outside of an analyzed function, where variables are
+     * defined in a scope per block.
+     */
+    private Environment.Variable[] globals = new Environment.Variable[0];
+    private Environment.PlcObject[] frame = null;
+
+    /**
+     * The functions of the source the analyzer gave an index, which calls it
+     * resolved to them use instead of looking them up in the scope.
+     */
+    private Environment.Function[] functions = new Environment.Function[0];
+
+    /**
+     * The function each call site outside the function table last resolved
+     * to. Nodes are compared by identity, since equal calls in different
+     * places of a tree are different call sites. The cache belongs to the
+     * interpreter, so interpreters sharing a tree do not share entries.
+     */
+    private final Map<Ast.Expression.Function, CallSite> callSites = new IdentityHashMap<>();
+
+    /**
+     * Counts of the calls whose call site cache held the function, and of
+     * those which had to look it up in the scope.
+     */
+    private long cacheHits = 0;
+    private long cacheMisses = 0;
+
     public Interpreter(Scope parent) {
         scope = new Scope(parent);
         scope.defineFunction("print", 1, args -> {
@@ -22,8 +60,18 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         return scope;
     }
 
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
+        globals = new Environment.Variable[ast.getGlobals().size()];
+        functions = new Environment.Function[ast.getFunctions().size()];
         //visit all globals
         for(Ast.Global global : ast.getGlobals()) {
             visit(global);
@@ -45,7 +93,15 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             val = visit(ast.getValue().get());
         }
         //define var with nil/val
-        scope.defineVariable(ast.getName(),ast.getMutable(),val);
+        Environment.Variable variable = scope.defineVariable(ast.getName(),ast.getMutable(),val);
+        if(ast.hasVariable() && ast.getVariable().getDepth() == 0 && ast.getVariable().getIndex() >= 0) {
+            //add var to the global frame, growing it if the global is visited on its own
+            int index = ast.getVariable().getIndex();
+            if(index >= globals.length) {
+                globals = Arrays.copyOf(globals, index + 1);
+            }
+            globals[index] = variable;
+        }
         //return nil
         return Environment.NIL;
     }
@@ -53,12 +109,23 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Function ast) {
         //define function
-        scope.defineFunction(ast.getName(), ast.getParameters().size(), args-> {
+        Environment.Function function = scope.defineFunction(ast.getName(), ast.getParameters().size(), args-> {
+            Scope parent = scope;
+            Environment.PlcObject[] caller = frame;
             try {
-                scope = new Scope(scope);
-                //define vars
-                for(int i = 0; i < args.size(); i++) {
-                    scope.defineVariable(ast.getParameters().get(i), true, args.get(i));
+                if(ast.getFrameSize() >= 0) {
+                    //arguments go in the first slots of a new frame, and no scope is needed
+                    frame = new Environment.PlcObject[ast.getFrameSize()];
+                    for(int i = 0; i < args.size(); i++) {
+                        frame[i] = args.get(i);
+                    }
+                } else {
+                    frame = null;
+                    scope = new Scope(scope);
+                    //define vars
+                    for(int i = 0; i < args.size(); i++) {
+                        scope.defineVariable(ast.getParameters().get(i), true, args.get(i));
+                    }
                 }
                 //visit statements
                 for(Ast.Statement statement : ast.getStatements()) {
@@ -68,12 +135,21 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                 //return
                 return r.value;
             } finally {
-                //restore scope
-                scope = scope.getParent();
+                //restore scope and frame
+                scope = parent;
+                frame = caller;
             }
             //return nil
             return Environment.NIL;
         });
+        if(ast.hasFunction() && ast.getFunction().getIndex() >= 0) {
+            //add function to the table, growing it if the function is visited on its own
+            int index = ast.getFunction().getIndex();
+            if(index >= functions.length) {
+                functions = Arrays.copyOf(functions, index + 1);
+            }
+            functions[index] = function;
+        }
         //return nil
         return Environment.NIL;
     }
@@ -88,7 +164,9 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Statement.Declaration ast) {
         Optional<Ast.Expression> optional = ast.getValue();
         Boolean present = optional.isPresent();
-        if(present) {
+        if(hasSlot(ast.hasVariable() ? ast.getVariable() : null)) {
+            store(ast.getVariable(), present ? visit(optional.get()) : Environment.NIL);
+        } else if(present) {
             Ast.Expression expr = (Ast.Expression) optional.get();
             scope.defineVariable(ast.getName(), true, visit(expr));
         } else {
@@ -104,9 +182,11 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             if((accessExpression).getOffset().isPresent()) {
                 List<Object> obj = Arrays.asList();
                 obj = requireType(obj.getClass(), scope.lookupVariable(accessExpression.getName()).getValue());
-                BigInteger val = (requireType(BigInteger.class, visit(accessExpression.getOffset().get())));
-                obj.set(val.intValue(), visit(ast.getValue()).getValue());
+                int val = requireIndex(visit(accessExpression.getOffset().get()));
+                obj.set(val, visit(ast.getValue()).getValue());
                 scope.lookupVariable(accessExpression.getName()).setValue(Environment.create(obj));
+            } else if(hasSlot(accessExpression.hasVariable() ? accessExpression.getVariable() : null)) {
+                store(accessExpression.getVariable(), visit(ast.getValue()));
             } else {
                 scope.lookupVariable((accessExpression).getName()).setValue(visit(ast.getValue()));
             }
@@ -117,21 +197,12 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.If ast) {
         //check for boolean condition
-        if(requireType(Boolean.class, visit(ast.getCondition())) != null) {
-            try {
-                //create new scope
-                scope = new Scope(scope);
-                //if true visit then statements
-                if((Boolean) visit(ast.getCondition()).getValue()) {
-                    ast.getThenStatements().forEach(this::visit);
-                } else {
-                    //if false visit else statements
-                    ast.getElseStatements().forEach(this::visit);
-                }
-            } finally {
-                //restore scope
-                scope = scope.getParent();
-            }
+        if(requireType(Boolean.class, visit(ast.getCondition()))) {
+            //if true visit then statements
+            visitBlock(ast.getThenStatements());
+        } else {
+            //if false visit else statements
+            visitBlock(ast.getElseStatements());
         }
         //return nil
         return Environment.NIL;
@@ -139,16 +210,19 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Switch ast) {
+        Scope parent = scope;
         try {
-            scope = new Scope(scope);
-            Ast.Statement.Case test = ast.getCases().get(0);
+            if(frame == null) {
+                scope = new Scope(scope);
+            }
+            Object condition = visit(ast.getCondition()).getValue();
             for(Ast.Statement.Case obj : ast.getCases()) {
-                if(obj.getValue().isPresent() && visit(ast.getCondition()).getValue().equals(visit(obj.getValue().get()).getValue())) {
+                if(obj.getValue().isPresent() && equal(condition, visit(obj.getValue().get()).getValue())) {
                     visit(obj);
                 }
             }
         } finally {
-            scope = scope.getParent();
+            scope = parent;
         }
         return Environment.NIL;
     }
@@ -164,12 +238,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.While ast) {
         while(requireType(Boolean.class, visit(ast.getCondition()))) {
-            try {
-                scope = new Scope(scope);
-                ast.getStatements().forEach(this::visit);
-            } finally {
-                scope = scope.getParent();
-            }
+            visitBlock(ast.getStatements());
         }
         return Environment.NIL;
     }
@@ -196,175 +265,178 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Expression.Binary ast) {
         //get left side of binary
         Environment.PlcObject left = visit(ast.getLeft());
+        //check if && or || is decided by the left side alone
+        if (ast.getOperator().equals("&&") && left.getValue() instanceof Boolean && !(Boolean) left.getValue()) {
+            return FALSE;
+        } else if (ast.getOperator().equals("||") && left.getValue() instanceof Boolean && (Boolean) left.getValue()) {
+            return TRUE;
+        }
+        //get right side of binary
+        Object right = visit(ast.getRight()).getValue();
         //check for +
         if(ast.getOperator().equals("+")) {
-            //check for bigint
-            if (left.getValue() instanceof BigInteger) {
-                if (visit(ast.getRight()).getValue() instanceof BigInteger) {
+            //check for integer
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
                     //return addition
-                    return Environment.create(requireType(BigInteger.class, left).add(requireType(BigInteger.class, visit(ast.getRight()))));
+                    return Environment.create(add(left.getValue(), right));
                 }
                 throw new RuntimeException();
             }
             //check for bigdecimal
             if(left.getValue() instanceof BigDecimal) {
-                if(visit(ast.getRight()).getValue() instanceof BigDecimal) {
+                if(right instanceof BigDecimal) {
                     //return addition
-                    return Environment.create(requireType(BigDecimal.class, left).add(requireType(BigDecimal.class, visit(ast.getRight()))));
+                    return Environment.create(requireType(BigDecimal.class, left).add((BigDecimal) right));
                 }
                 throw new RuntimeException();
             }
             //check for string
             if(left.getValue() instanceof String) {
-                if(visit(ast.getRight()).getValue() instanceof String) {
+                if(right instanceof String) {
                     //return concatenation
-                    return Environment.create(requireType(String.class, left) + requireType(String.class, visit(ast.getRight())));
+                    return Environment.create(requireType(String.class, left) + right);
                 }
                 throw new RuntimeException();
             }
         //check for -
         } else if (ast.getOperator().equals("-")) {
-            //check for bigint
-            if (left.getValue() instanceof BigInteger) {
-                if (visit(ast.getRight()).getValue() instanceof BigInteger) {
+            //check for integer
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
                     //return subtraction
-                    return Environment.create(requireType(BigInteger.class, left).subtract(requireType(BigInteger.class, visit(ast.getRight()))));
+                    return Environment.create(subtract(left.getValue(), right));
                 }
                 throw new RuntimeException();
             }
             //check for bigdecimal
             if(left.getValue() instanceof BigDecimal) {
-                if(visit(ast.getRight()).getValue() instanceof BigDecimal) {
+                if(right instanceof BigDecimal) {
                     //return subtraction
-                    return Environment.create(requireType(BigDecimal.class, left).subtract(requireType(BigDecimal.class, visit(ast.getRight()))));
+                    return Environment.create(requireType(BigDecimal.class, left).subtract((BigDecimal) right));
                 }
                 throw new RuntimeException();
             }
         //check for *
         } else if (ast.getOperator().equals("*")) {
-            //check for bigint
-            if (left.getValue() instanceof BigInteger) {
-                if (visit(ast.getRight()).getValue() instanceof BigInteger) {
+            //check for integer
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
                     //return multiplication
-                    return Environment.create(requireType(BigInteger.class, left).multiply(requireType(BigInteger.class, visit(ast.getRight()))));
+                    return Environment.create(multiply(left.getValue(), right));
                 }
                 throw new RuntimeException();
             }
             //check for bigdecimal
             if(left.getValue() instanceof BigDecimal) {
-                if(visit(ast.getRight()).getValue() instanceof BigDecimal) {
+                if(right instanceof BigDecimal) {
                     //return multiplication
-                    return Environment.create(requireType(BigDecimal.class, left).multiply(requireType(BigDecimal.class, visit(ast.getRight()))));
+                    return Environment.create(requireType(BigDecimal.class, left).multiply((BigDecimal) right));
                 }
                 throw new RuntimeException();
             }
         //check for /
         } else if (ast.getOperator().equals("/")) {
-            //check for bigint
-            if (left.getValue() instanceof BigInteger) {
-                if (visit(ast.getRight()).getValue() instanceof BigInteger) {
+            //check for integer
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
                     //check for division by 0 error
-                    if (((BigInteger) visit(ast.getRight()).getValue()).intValue() == 0) {
+                    if (compare(right, 0L) == 0) {
                         throw new RuntimeException();
                     }
                     //return division
-                    return Environment.create(requireType(BigInteger.class, left).divide(requireType(BigInteger.class, visit(ast.getRight()))));
+                    return Environment.create(divide(left.getValue(), right));
                 }
                 throw new RuntimeException();
             }
             //check for bigdecimal
             if (left.getValue() instanceof BigDecimal) {
-                if (visit(ast.getRight()).getValue() instanceof BigDecimal) {
+                if (right instanceof BigDecimal) {
                     //check for division by 0 error
-                    if (((BigDecimal) visit(ast.getRight()).getValue()).doubleValue() == 0) {
+                    if (((BigDecimal) right).doubleValue() == 0) {
                         throw new RuntimeException();
                     }
                     //return division with half_even rounding
-                    return Environment.create(requireType(BigDecimal.class, left).divide(requireType(BigDecimal.class, visit(ast.getRight())),RoundingMode.HALF_EVEN));
+                    return Environment.create(requireType(BigDecimal.class, left).divide((BigDecimal) right, RoundingMode.HALF_EVEN));
                 }
                 throw new RuntimeException();
             }
         //check for ^
         } else if (ast.getOperator().equals("^")) {
-            //check for bigint
-            if (left.getValue() instanceof BigInteger) {
-                if (visit(ast.getRight()).getValue() instanceof BigInteger) {
-                    //exponential calculation
-                    BigInteger val = BigInteger.ONE;
-                    BigInteger base = requireType(BigInteger.class, left);
-                    BigInteger exp = requireType(BigInteger.class, visit(ast.getRight()));
-                    while(exp.signum() > 0) {
-                        if(exp.testBit(0)) val = val.multiply(base);
-                        base = base.multiply(base);
-                        exp = exp.shiftRight(1);
-                    }
+            //check for integer
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
                     //return exponential calculation
-                    return Environment.create(val);
+                    return Environment.create(power(left.getValue(), right));
                 }
                 throw new RuntimeException();
             }
         //check for &&
         } else if(ast.getOperator().equals("&&")) {
-            //check if left side is false
-            if(left.getValue() instanceof Boolean && !(Boolean)left.getValue()) {
-                //return false
-                return Environment.create(false);
-            }
             //check if right side is false
-            if(visit(ast.getRight()).getValue() instanceof Boolean && !(Boolean)visit(ast.getRight()).getValue()) {
+            if(right instanceof Boolean && !(Boolean)right) {
                 //return false
-                return Environment.create(false);
+                return FALSE;
             }
             //return true
             if(left.getValue() instanceof Boolean) {
-                if(visit(ast.getRight()).getValue() instanceof Boolean) {
-                    return Environment.create(true);
+                if(right instanceof Boolean) {
+                    return TRUE;
                 }
                 throw new RuntimeException();
             }
         //check for ||
         } else if(ast.getOperator().equals("||")) {
-            //check if left side is true
-            if (left.getValue() instanceof Boolean && (Boolean) left.getValue()) {
-                //return true
-                return Environment.create(true);
-            }
             //check if right side is true
-            if (visit(ast.getRight()).getValue() instanceof Boolean && (Boolean) visit(ast.getRight()).getValue()) {
+            if (right instanceof Boolean && (Boolean) right) {
                 //return true
-                return Environment.create(true);
+                return TRUE;
             }
             //return false
             if (left.getValue() instanceof Boolean) {
-                if (visit(ast.getRight()).getValue() instanceof Boolean) {
-                    return Environment.create(false);
+                if (right instanceof Boolean) {
+                    return FALSE;
                 }
                 throw new RuntimeException();
             }
         //check for ==
         } else if (ast.getOperator().equals("==")) {
             //return equals value
-            return Environment.create(Objects.equals(left.getValue(), visit(ast.getRight()).getValue()));
+            return bool(equal(left.getValue(), right));
         //check for !=
         } else if (ast.getOperator().equals("!=")) {
             //return not equals value
-            return Environment.create(!Objects.equals(left.getValue(), visit(ast.getRight()).getValue()));
+            return bool(!equal(left.getValue(), right));
         //check for <
         } else if (ast.getOperator().equals("<")) {
+            //check for integers, which may be a Long and a BigInteger
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
+                    //return less than value
+                    return bool(compare(left.getValue(), right) < 0);
+                }
+            }
             //check for comparable
             if(left.getValue() instanceof Comparable) {
-                if(requireType(left.getValue().getClass(), visit(ast.getRight())) != null) {
+                if(requireType(left.getValue().getClass(), right) != null) {
                     //return less than value
-                    return Environment.create(((Comparable) left.getValue()).compareTo(visit(ast.getRight()).getValue()) < 0);
+                    return bool(((Comparable) left.getValue()).compareTo(right) < 0);
                 }
             }
         //check for >
         } else if (ast.getOperator().equals(">")) {
+            //check for integers, which may be a Long and a BigInteger
+            if (isInteger(left.getValue())) {
+                if (isInteger(right)) {
+                    //return greater than value
+                    return bool(compare(left.getValue(), right) > 0);
+                }
+            }
             //check for comparable
             if(left.getValue() instanceof Comparable) {
-                if(requireType(left.getValue().getClass(), visit(ast.getRight())) != null) {
+                if(requireType(left.getValue().getClass(), right) != null) {
                     //return greater than value
-                    return Environment.create(((Comparable) left.getValue()).compareTo(visit(ast.getRight()).getValue()) > 0);
+                    return bool(((Comparable) left.getValue()).compareTo(right) > 0);
                 }
             }
         }
@@ -377,19 +449,22 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if(ast.getOffset().isPresent()) {
             List<Environment.PlcObject> obj = Arrays.asList();
             obj = requireType(obj.getClass(), scope.lookupVariable(ast.getName()).getValue());
-            BigInteger val = (requireType(BigInteger.class, visit(ast.getOffset().get())));
-            return new Environment.PlcObject(scope, obj.get(val.intValue()));
+            int val = requireIndex(visit(ast.getOffset().get()));
+            return Environment.create(obj.get(val));
+        }
+        if(hasSlot(ast.hasVariable() ? ast.getVariable() : null)) {
+            return load(ast.getVariable());
         }
         return scope.lookupVariable(ast.getName()).getValue();
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Function ast) {
-        List<Environment.PlcObject> args = new ArrayList<>();
+        List<Environment.PlcObject> args = new ArrayList<>(ast.getArguments().size());
         for(Ast.Expression arg : ast.getArguments()) {
             args.add(visit(arg));
         }
-        Environment.Function fun = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+        Environment.Function fun = resolve(ast);
         return fun.invoke(args);
     }
 
@@ -399,31 +474,244 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         for(int i = 0; i < ast.getValues().size(); i++) {
             list.add(visit(ast.getValues().get(i)).getValue());
         }
-        return new Environment.PlcObject(new Scope(null), list);
+        return Environment.create(list);
+    }
+
+    /**
+     * Returns the function a call resolves to, which is in the function table
+     * if the analyzer resolved the call to a function of the source, or else
+     * is looked up in the scope unless the call site cache still holds it.
+     */
+    private Environment.Function resolve(Ast.Expression.Function ast) {
+        if(ast.hasFunction()) {
+            int index = ast.getFunction().getIndex();
+            if(index >= 0 && index < functions.length && functions[index] != null) {
+                return functions[index];
+            }
+        }
+        //functions are only defined in the root scope of the interpreter and its
+        //parents, so a call resolves the same way from any block until the
+        //function version of the chain changes
+        int version = scope.getFunctionVersion();
+        CallSite cached = callSites.get(ast);
+        if(cached != null && cached.version == version) {
+            cacheHits++;
+            return cached.function;
+        }
+        cacheMisses++;
+        Environment.Function function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+        callSites.put(ast, new CallSite(version, function));
+        return function;
+    }
+
+    /**
+     * Visits the statements of a block in a new scope, unless they are in an
+     * analyzed function, where their variables are in the frame and so the
+     * block allocates nothing.
+     */
+    private void visitBlock(List<Ast.Statement> statements) {
+        Scope parent = scope;
+        try {
+            if(frame == null) {
+                scope = new Scope(scope);
+            }
+            for(Ast.Statement statement : statements) {
+                visit(statement);
+            }
+        } finally {
+            scope = parent;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the analyzer gave the variable a slot which is
+     * in use, in which case it is stored in a frame instead of looked up in
+     * the scope. A global must have been added to the global frame, and a
+     * local must be in an analyzed function, since analysis which failed part
+     * way leaves slots on variables of functions without a frame.
+     */
+    private boolean hasSlot(Environment.Variable variable) {
+        if(variable == null || variable.getIndex() < 0) {
+            return false;
+        } else if(variable.getDepth() == 0) {
+            return variable.getIndex() < globals.length && globals[variable.getIndex()] != null;
+        }
+        return frame != null;
+    }
+
+    private Environment.PlcObject load(Environment.Variable variable) {
+        if(variable.getDepth() == 0) {
+            return globals[variable.getIndex()].getValue();
+        }
+        return frame[variable.getIndex()];
+    }
+
+    private void store(Environment.Variable variable, Environment.PlcObject value) {
+        if(variable.getDepth() == 0) {
+            globals[variable.getIndex()].setValue(value);
+        } else {
+            frame[variable.getIndex()] = value;
+        }
+    }
+
+    private static Environment.PlcObject bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Returns {@code true} if the value is an Integer, which is a {@link Long}
+     * unless it does not fit in one or was created as a {@link BigInteger}.
+     */
+    private static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof BigInteger;
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        return value instanceof Long ? BigInteger.valueOf((Long) value) : (BigInteger) value;
+    }
+
+    /**
+     * Helper function to ensure an object is an Integer, returning it as an
+     * index.
+     */
+    private static int requireIndex(Environment.PlcObject object) {
+        if (object.getValue() instanceof Long) {
+            return ((Long) object.getValue()).intValue();
+        }
+        return requireType(BigInteger.class, object).intValue();
+    }
+
+    /**
+     * The arithmetic helpers below compute with longs when both operands are
+     * Longs, falling back to a BigInteger on overflow, and with BigIntegers
+     * otherwise.
+     */
+    private static Object add(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            try {
+                return Math.addExact((Long) left, (Long) right);
+            } catch (ArithmeticException e) {
+                //overflow, fall through to BigInteger
+            }
+        }
+        return toBigInteger(left).add(toBigInteger(right));
+    }
+
+    private static Object subtract(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            try {
+                return Math.subtractExact((Long) left, (Long) right);
+            } catch (ArithmeticException e) {
+                //overflow, fall through to BigInteger
+            }
+        }
+        return toBigInteger(left).subtract(toBigInteger(right));
+    }
+
+    private static Object multiply(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            try {
+                return Math.multiplyExact((Long) left, (Long) right);
+            } catch (ArithmeticException e) {
+                //overflow, fall through to BigInteger
+            }
+        }
+        return toBigInteger(left).multiply(toBigInteger(right));
+    }
+
+    private static Object divide(Object left, Object right) {
+        //the only long division which overflows is MIN_VALUE / -1
+        if (left instanceof Long && right instanceof Long && !((Long) left == Long.MIN_VALUE && (Long) right == -1)) {
+            return (Long) left / (Long) right;
+        }
+        return toBigInteger(left).divide(toBigInteger(right));
+    }
+
+    private static Object power(Object base, Object exponent) {
+        if (base instanceof Long && exponent instanceof Long) {
+            Object val = 1L;
+            long exp = (Long) exponent;
+            while (exp > 0) {
+                if ((exp & 1) == 1) val = multiply(val, base);
+                exp >>= 1;
+                //only square the base if it is used again
+                if (exp > 0) base = multiply(base, base);
+            }
+            return val;
+        }
+        BigInteger val = BigInteger.ONE;
+        BigInteger bigBase = toBigInteger(base);
+        BigInteger exp = toBigInteger(exponent);
+        while(exp.signum() > 0) {
+            if(exp.testBit(0)) val = val.multiply(bigBase);
+            bigBase = bigBase.multiply(bigBase);
+            exp = exp.shiftRight(1);
+        }
+        return val;
+    }
+
+    private static int compare(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        return toBigInteger(left).compareTo(toBigInteger(right));
+    }
+
+    /**
+     * Compares values as {@link Objects#equals(Object, Object)}, except that
+     * a Long and a BigInteger are equal if they have the same value.
+     */
+    private static boolean equal(Object left, Object right) {
+        if (isInteger(left) && isInteger(right) && left.getClass() != right.getClass()) {
+            return compare(left, right) == 0;
+        }
+        return Objects.equals(left, right);
     }
 
     /**
      * Helper function to ensure an object is of the appropriate type.
      */
     private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
-        if (type.isInstance(object.getValue())) {
-            return type.cast(object.getValue());
+        return requireType(type, object.getValue());
+    }
+
+    private static <T> T requireType(Class<T> type, Object value) {
+        if (type.isInstance(value)) {
+            return type.cast(value);
         } else {
-            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + value.getClass().getName() + ".");
         }
     }
 
     /**
-     * Exception class for returning values.
+     * Exception class for returning values. It is thrown by every return, so
+     * it does not fill in a stack trace.
      */
     private static class Return extends RuntimeException {
 
         private final Environment.PlcObject value;
 
         private Return(Environment.PlcObject value) {
+            super(null, null, false, false);
             this.value = value;
         }
 
     }
 
+    /**
+     * The function a call site last resolved to, and the function version of
+     * the scope chain it was resolved in.
+     */
+    private static final class CallSite {
+
+        private final int version;
+        private final Environment.Function function;
+
+        private CallSite(int version, Environment.Function function) {
+            this.version = version;
+            this.function = function;
+        }
+
+    }
+
 }
@@ -0,0 +1,63 @@
+package plc.project;
+
+/**
+ * The reserved words of the language. Keywords are lexed as identifiers, so
+ * a token is a keyword if it is an {@link Token.Type#IDENTIFIER} whose literal
+ * is one of these names.
+ *
+ * Every {@link SymbolTable} interns the keywords first, in declaration order,
+ * so the symbol of a keyword is its ordinal in every table and checking for a
+ * keyword is an integer comparison rather than a string comparison.
+ */
+public enum Keyword {
+
+    LIST,
+    VAR,
+    VAL,
+    FUN,
+    DO,
+    END,
+    LET,
+    SWITCH,
+    CASE,
+    DEFAULT,
+    IF,
+    ELSE,
+    WHILE,
+    RETURN,
+    NIL,
+    TRUE,
+    FALSE;
+
+    private static final Keyword[] VALUES = values();
+
+    /**
+     * Returns the keyword with the given symbol, or {@code null} if the
+     * symbol is not a keyword.
+     */
+    public static Keyword of(int symbol) {
+        return symbol >= 0 && symbol < VALUES.length ? VALUES[symbol] : null;
+    }
+
+    /**
+     * Returns the keyword with the given literal, or {@code null} if the
+     * literal is not a keyword.
+     */
+    public static Keyword of(CharSequence literal) {
+        return of(literal, 0, literal.length());
+    }
+
+    /**
+     * Returns the keyword spelled by {@code [start, end)} of the source, or
+     * {@code null} if the range is not a keyword, without allocating.
+     */
+    public static Keyword of(CharSequence source, int start, int end) {
+        for (Keyword keyword : VALUES) {
+            if (SymbolTable.equals(keyword.name(), source, start, end)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+
+}
@@ -19,7 +19,7 @@ public final class Lexer {
 
     private final CharStream chars;
 
-    public Lexer(String input) {
+    public Lexer(CharSequence input) {
         chars = new CharStream(input);
     }
 
@@ -163,7 +163,7 @@ public final class Lexer {
 
     public Token lexOperator() {
         //check for special cases
-        if(match("!", "=") || match("=","=") || match("&","&") || match("|", "|"))
+        if(match("!", "=") || match("=","=") || match("&","&") || match("\\|", "\\|"))
             //emit token
             return chars.emit(Token.Type.OPERATOR);
         //any character regex except no whitespace
@@ -203,20 +203,25 @@ public final class Lexer {
     }
 
     /**
-     * A helper class maintaining the input string, current index of the char
+     * A helper class maintaining the input (a string, or any other character
+     * sequence such as a {@link MappedSource}), current index of the char
      * stream, and the current length of the token being matched.
      *
+     * Emitted tokens are views of the input, which only copy their literal
+     * out of it when it is first needed, so the input must not be modified
+     * while the tokens are in use.
+     *
      * You should rely on peek/match for state management in nearly all cases.
      * The only field you need to access is {@link #index} for any {@link
      * ParseException} which is thrown.
      */
     public static final class CharStream {
 
-        private final String input;
+        private final CharSequence input;
         private int index = 0;
         private int length = 0;
 
-        public CharStream(String input) {
+        public CharStream(CharSequence input) {
             this.input = input;
         }
 
@@ -240,7 +245,7 @@ public final class Lexer {
         public Token emit(Token.Type type) {
             int start = index - length;
             skip();
-            return new Token(type, input.substring(start, index), start);
+            return Token.view(type, input, start, index);
         }
 
     }
@@ -0,0 +1,90 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharSequence} view of a memory-mapped source file, which lets the
+ * lexers read a file without decoding it into a {@link String} first.
+ *
+ * Character offsets must stay the same as in the decoded string so token
+ * indices (and {@link ParseException} positions) line up. For an ASCII file
+ * every byte is one character, so the mapped bytes are read directly. Files
+ * containing multi-byte UTF-8 sequences fall back to a decoded copy.
+ */
+public final class MappedSource implements CharSequence {
+
+    private static final long NON_ASCII = 0x8080808080808080L;
+
+    private final ByteBuffer bytes;
+
+    private MappedSource(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Maps the file at the given path, returning a view of its characters.
+     */
+    public static CharSequence map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Source file " + path + " is larger than 2GB.");
+            }
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (isAscii(bytes)) {
+                return new MappedSource(bytes);
+            }
+            return StandardCharsets.UTF_8.decode(bytes);
+        }
+    }
+
+    /**
+     * Returns true if no byte has the high bit set, checking eight bytes at a
+     * time.
+     */
+    private static boolean isAscii(ByteBuffer bytes) {
+        ByteBuffer words = bytes.duplicate().order(ByteOrder.nativeOrder());
+        int i = 0;
+        int limit = words.limit();
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            if ((words.getLong(i) & NON_ASCII) != 0) {
+                return false;
+            }
+        }
+        for (; i < limit; i++) {
+            if (words.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) bytes.get(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new MappedSource(bytes.slice(start, end - start));
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[bytes.limit()];
+        bytes.get(0, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -0,0 +1,136 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lexes a large source on a {@link ForkJoinPool} by splitting it into chunks
+ * and lexing each chunk with a {@link DfaLexer}.
+ *
+ * No token can contain a line terminator (a newline inside a string or
+ * character literal is an error), so the lexer is always between tokens
+ * after {@code '\n'} or {@code '\r'}. Chunks are therefore only split after a
+ * line terminator, which makes every boundary exact: the tokens are the same
+ * as {@link Lexer#lex()}, and the first {@link ParseException} in source
+ * order is thrown. A source without line terminators is lexed as one chunk.
+ */
+public final class ParallelLexer {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final CharSequence input;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelLexer(CharSequence input) {
+        this(input, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a lexer using the given pool, with chunks of at least the given
+     * number of characters.
+     */
+    public ParallelLexer(CharSequence input, ForkJoinPool pool, int chunkSize) {
+        this.input = input;
+        this.pool = pool;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Lexes the entire input, returning the same tokens as {@link Lexer#lex()}.
+     */
+    public List<Token> lex() {
+        List<Chunk> chunks = split();
+        if (chunks.size() == 1) {
+            chunks.get(0).compute();
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+        }
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+            size += chunk.tokens.size();
+        }
+        List<Token> tokens = new ArrayList<>(size);
+        for (Chunk chunk : chunks) {
+            tokens.addAll(chunk.tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Splits the input into chunks of roughly equal size, giving each worker
+     * of the pool a few chunks to balance the load.
+     */
+    private List<Chunk> split() {
+        int length = input.length();
+        int size = Math.max(chunkSize, length / (pool.getParallelism() * 4));
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        do {
+            int end = boundary(Math.min(start + size, length));
+            chunks.add(new Chunk(input, start, end));
+            start = end;
+        } while (start < length);
+        return chunks;
+    }
+
+    /**
+     * Returns the first position at or after the given one which follows a
+     * line terminator, or the end of the input.
+     */
+    private int boundary(int position) {
+        for (int i = position; i < input.length(); i++) {
+            char c = input.charAt(i - 1);
+            if (c == '\n' || c == '\r') {
+                return i;
+            }
+        }
+        return input.length();
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Chunk extends RecursiveAction {
+
+        private final CharSequence input;
+        private final int start;
+        private final int end;
+        private List<Token> tokens;
+        private ParseException error;
+
+        private Chunk(CharSequence input, int start, int end) {
+            this.input = input;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Lexes the chunk with its own symbol table, so repeated identifiers
+         * share a literal. Symbols from different tables can't be compared,
+         * so they are not recorded in the tokens.
+         */
+        @Override
+        protected void compute() {
+            try {
+                TokenBuffer buffer = new DfaLexer(input, new SymbolTable(), start, end).lexBuffer();
+                tokens = new ArrayList<>(buffer.size());
+                for (int i = 0; i < buffer.size(); i++) {
+                    tokens.add(new Token(buffer.getType(i), buffer.getLiteral(i), buffer.getStart(i)));
+                }
+            } catch (ParseException e) {
+                error = e;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a source with many functions on a {@link ForkJoinPool} by parsing
+ * the functions in parallel.
+ *
+ * A pre-scan finds the {@code FUN} tokens which likely start a top-level
+ * function: the first token, or one following {@code END} or {@code ;}. Each
+ * is parsed on its own from that token, and {@link Parser#parseSource()} then
+ * runs in order, taking the already parsed function wherever it reaches one
+ * of those tokens. The scan is only a guess (a {@code FUN} identifier can
+ * appear inside a body), but a function is only taken where the sequential
+ * parse would have started it, and parsing is deterministic, so the
+ * {@link Ast.Source} and the first {@link ParseException} are the same as
+ * {@link Parser#parseSource()}.
+ */
+public final class ParallelParser {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 12;
+
+    private final List<Token> tokens;
+    private final TokenBuffer buffer;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private int[] starts;
+    private int[] ends;
+    private Ast.Function[] functions;
+    private RuntimeException[] errors;
+
+    public ParallelParser(List<Token> tokens) {
+        this(tokens, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a parser using the given pool, with chunks of at least the
+     * given number of tokens.
+     */
+    public ParallelParser(List<Token> tokens, ForkJoinPool pool, int chunkSize) {
+        this(tokens, null, pool, chunkSize);
+    }
+
+    public ParallelParser(TokenBuffer tokens) {
+        this(tokens, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelParser(TokenBuffer tokens, ForkJoinPool pool, int chunkSize) {
+        this(null, tokens, pool, chunkSize);
+    }
+
+    private ParallelParser(List<Token> tokens, TokenBuffer buffer, ForkJoinPool pool, int chunkSize) {
+        this.tokens = tokens;
+        this.buffer = buffer;
+        this.pool = pool;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Parses the {@code source} rule, returning the same result as
+     * {@link Parser#parseSource()}.
+     */
+    public Ast.Source parseSource() throws ParseException {
+        starts = scan();
+        ends = new int[starts.length];
+        functions = new Ast.Function[starts.length];
+        errors = new RuntimeException[starts.length];
+        List<Chunk> chunks = split();
+        if (chunks.size() == 1) {
+            chunks.get(0).compute();
+        } else if (chunks.size() > 1) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+        }
+        return parser().parseSource(new Functions());
+    }
+
+    private Parser parser() {
+        return tokens != null ? new Parser(tokens) : new Parser(buffer);
+    }
+
+    private int size() {
+        return tokens != null ? tokens.size() : buffer.size();
+    }
+
+    private Keyword getKeyword(int i) {
+        return tokens != null ? tokens.get(i).getKeyword() : buffer.getKeyword(i);
+    }
+
+    /**
+     * Returns the indices of the {@code FUN} tokens which likely start a
+     * top-level function.
+     */
+    private int[] scan() {
+        int[] found = new int[16];
+        int count = 0;
+        for (int i = 0; i < size(); i++) {
+            if (getKeyword(i) == Keyword.FUN && (i == 0 || getKeyword(i - 1) == Keyword.END || isSemicolon(i - 1))) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = i;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private boolean isSemicolon(int i) {
+        return tokens != null ? tokens.get(i).matches(";") : buffer.matches(i, ";");
+    }
+
+    /**
+     * Groups consecutive functions into chunks spanning at least the chunk
+     * size in tokens, giving each worker of the pool a few chunks to balance
+     * the load.
+     */
+    private List<Chunk> split() {
+        int size = Math.max(chunkSize, size() / (pool.getParallelism() * 4));
+        List<Chunk> chunks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= starts.length; i++) {
+            if (i == starts.length || starts[i] - starts[from] >= size) {
+                chunks.add(new Chunk(from, i));
+                from = i;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * The functions parsed by the chunks, throwing the exception a parse
+     * threw if it failed.
+     */
+    private final class Functions implements Parser.Declarations {
+
+        @Override
+        public Ast get(int start) {
+            int i = Arrays.binarySearch(starts, start);
+            if (i < 0) {
+                return null;
+            } else if (errors[i] != null) {
+                throw errors[i];
+            }
+            return functions[i];
+        }
+
+        @Override
+        public int getEnd(int start) {
+            return ends[Arrays.binarySearch(starts, start)];
+        }
+
+        @Override
+        public void put(int start, int end, Ast declaration) {}
+
+    }
+
+    @SuppressWarnings("serial")
+    private final class Chunk extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        private Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            Parser parser = parser();
+            for (int i = from; i < to; i++) {
+                try {
+                    functions[i] = parser.parseFunction(starts[i]);
+                    ends[i] = parser.getTokenIndex();
+                } catch (RuntimeException e) {
+                    errors[i] = e;
+                }
+            }
+        }
+
+    }
+
+}
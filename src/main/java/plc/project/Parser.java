@@ -19,10 +19,99 @@ import java.util.*;
  */
 public final class Parser {
 
+    private static final int LOGICAL = 1;
+    private static final int COMPARISON = 2;
+    private static final int ADDITIVE = 3;
+    private static final int MULTIPLICATIVE = 4;
+
+    /**
+     * The binary operators with their precedence and associativity. Adding
+     * an operator only requires an entry here (and support in the later
+     * phases); comparisons are right associative, as the grammar parses
+     * their right operand as another comparison.
+     */
+    private static final Operator[] OPERATORS = {
+            new Operator("&&", LOGICAL, false),
+            new Operator("||", LOGICAL, false),
+            new Operator("<", COMPARISON, true),
+            new Operator(">", COMPARISON, true),
+            new Operator("==", COMPARISON, true),
+            new Operator("!=", COMPARISON, true),
+            new Operator("+", ADDITIVE, false),
+            new Operator("-", ADDITIVE, false),
+            new Operator("/", MULTIPLICATIVE, false),
+            new Operator("*", MULTIPLICATIVE, false),
+            new Operator("^", MULTIPLICATIVE, false),
+    };
+
+    private static final int MAX_OPERATOR_LENGTH = Arrays.stream(OPERATORS)
+            .mapToInt(operator -> operator.literal.length())
+            .max()
+            .getAsInt();
+
+    /**
+     * How nested expressions and blocks are parsed. Both modes produce the
+     * same {@link Ast} and the same {@link ParseException}s.
+     */
+    public enum Mode {
+
+        /**
+         * Each nested group, call, index or block is parsed by a recursive
+         * call, so the nesting depth is limited by the Java stack.
+         */
+        RECURSIVE,
+
+        /**
+         * Nesting is tracked on explicit stacks on the heap, so the depth is
+         * only limited by memory.
+         */
+        ITERATIVE
+
+    }
+
     private final TokenStream tokens;
+    private final Mode mode;
+    private List<ParseException> errors = null;
+    private boolean unwinding = false;
 
     public Parser(List<Token> tokens) {
-        this.tokens = new TokenStream(tokens);
+        this(tokens, Mode.RECURSIVE);
+    }
+
+    public Parser(List<Token> tokens, Mode mode) {
+        this.tokens = new ListTokenStream(tokens);
+        this.mode = mode;
+    }
+
+    /**
+     * Creates a parser reading tokens directly from a {@link TokenBuffer},
+     * without materializing {@link Token} objects.
+     */
+    public Parser(TokenBuffer tokens) {
+        this(tokens, Mode.RECURSIVE);
+    }
+
+    public Parser(TokenBuffer tokens, Mode mode) {
+        this.tokens = new BufferTokenStream(tokens);
+        this.mode = mode;
+    }
+
+    /**
+     * Creates a parser pulling tokens from an iterator as it needs them, such
+     * as a {@link StreamingLexer}, so lexing and parsing run in a single pass.
+     * Only the current, previous and next tokens are kept, and the iterator
+     * is never read past the token after the one being parsed.
+     *
+     * Errors are reported in the order they are reached, so a lexer error
+     * after a parse error is not thrown.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this(tokens, Mode.RECURSIVE);
+    }
+
+    public Parser(Iterator<Token> tokens, Mode mode) {
+        this.tokens = new IteratorTokenStream(tokens);
+        this.mode = mode;
     }
 
     /**
@@ -30,9 +119,9 @@ public final class Parser {
      */
     private ParseException handleError(String message) {
         if(!tokens.has(0)) {
-            return new ParseException(message, tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            return new ParseException(message, tokens.getIndex(-1) + tokens.getLength(-1));
         } else {
-            return new ParseException(message, tokens.get(0).getIndex());
+            return new ParseException(message, tokens.getIndex(0));
         }
     }
 
@@ -40,23 +129,98 @@ public final class Parser {
      * Parses the {@code source} rule.
      */
     public Ast.Source parseSource() throws ParseException {
+        return parseSource((Declarations) null);
+    }
+
+    /**
+     * Parses the {@code source} rule, recovering from syntax errors instead of
+     * throwing the first one. Each error is added to the given list, and the
+     * tree of everything which did parse is returned.
+     *
+     * After an error in a statement, parsing resumes after the next
+     * {@code ;} or at the next {@code END}, skipping any nested
+     * {@code DO ... END} blocks in between. After an error outside of a
+     * function body, or if the next {@code FUN}, {@code VAR}, {@code VAL} or
+     * {@code LIST} is reached first, it resumes at that declaration. The
+     * declaration (or statement) containing an error is left out of the tree,
+     * as are the statements skipped. A valid source parses exactly as with
+     * {@link #parseSource()}, and no exceptions are created for it.
+     */
+    public Ast.Source parseSource(List<ParseException> errors) throws ParseException {
+        this.errors = errors;
+        try {
+            return parseSource((Declarations) null);
+        } finally {
+            this.errors = null;
+        }
+    }
+
+    /**
+     * Parses the {@code source} rule, taking each global or function in the
+     * given declarations from its first token instead of parsing it again, and
+     * recording each one it does parse. Everything else is parsed in order, so
+     * the result and the first error are the same as {@link #parseSource()}.
+     */
+    Ast.Source parseSource(Declarations parsed) throws ParseException {
         try {
             List<Ast.Global> globals = new ArrayList<>();
             List<Ast.Function> functions = new ArrayList<>();
 
             while (tokens.has(0)) {
-                if (peek("LIST") || peek("VAR") || peek("VAL")) {
-                    globals.add(parseGlobal());
-                    if (!match(";")) {
-                        throw handleError("Expected ';'");
+                int start = tokens.index;
+                unwinding = false;
+                try {
+                    if (peek(Keyword.LIST) || peek(Keyword.VAR) || peek(Keyword.VAL)) {
+                        Ast.Global global = parsed != null ? (Ast.Global) parsed.get(start) : null;
+                        if (global != null) {
+                            tokens.index = parsed.getEnd(start);
+                        } else {
+                            global = parseGlobal();
+                            if (!match(";")) {
+                                throw handleError("Expected ';'");
+                            }
+                        }
+                        if (parsed != null) {
+                            parsed.put(start, tokens.index, global);
+                        }
+                        globals.add(global);
                     }
-                }
 
-                else if (match("FUN")) {
-                    functions.add(parseFunction());
+                    else if (peek(Keyword.FUN)) {
+                        Ast.Function function = parsed != null ? (Ast.Function) parsed.get(start) : null;
+                        if (function != null) {
+                            tokens.index = parsed.getEnd(start);
+                        } else {
+                            tokens.advance();
+                            function = parseFunction();
+                        }
+                        if (parsed != null) {
+                            parsed.put(start, tokens.index, function);
+                        }
+                        functions.add(function);
 
-                    if (peek("LIST") || peek("VAR") || peek("VAL")) {
-                        throw handleError("Globals cannot come after functions");
+                        if (peek(Keyword.LIST) || peek(Keyword.VAR) || peek(Keyword.VAL)) {
+                            throw handleError("Globals cannot come after functions");
+                        }
+                    }
+
+                    else {
+                        throw handleError("Expected LIST, VAR, VAL, or FUN");
+                    }
+                } catch (ParseException p) {
+                    if (errors == null) {
+                        throw p;
+                    }
+                    //an error while unwinding follows from the one recorded
+                    if (!unwinding) {
+                        errors.add(p);
+                    }
+                    //skip to the next declaration, making progress at least
+                    if (tokens.index == start) {
+                        tokens.advance();
+                    }
+                    while (tokens.has(0) && !peekDeclaration()) {
+                        tokens.advance();
                     }
                 }
             }
@@ -73,11 +237,11 @@ public final class Parser {
     public Ast.Global parseGlobal() throws ParseException {
         try {
             // Need to check end of TokenStream if there is a ;, if not throw a ParseException
-            if(match("LIST")) {
+            if(match(Keyword.LIST)) {
                 return parseList();
-            } else if (match("VAR")) {
+            } else if (match(Keyword.VAR)) {
                 return parseMutable();
-            } else if (match("VAL")) {
+            } else if (match(Keyword.VAL)) {
                 return parseImmutable();
             } else {
                 throw handleError("Expected list, mutable, or immutable");
@@ -94,14 +258,14 @@ public final class Parser {
     public Ast.Global parseList() throws ParseException {
         try {
             if(match(Token.Type.IDENTIFIER)) {
-                String lhs = tokens.get(-1).getLiteral();
+                String lhs = tokens.getLiteral(-1);
                 if(!match(":")) {
                     throw handleError("Expected :");
                 }
                 if(!match(Token.Type.IDENTIFIER)) {
                     throw handleError("Missing Identifier");
                 }
-                String type = tokens.get(-1).getLiteral();
+                String type = tokens.getLiteral(-1);
                 if(!match("=")) {
                     throw handleError("Expected '='");
                 }
@@ -137,7 +301,7 @@ public final class Parser {
         try {
             if (match(Token.Type.IDENTIFIER))  {
                 //get left hand side
-                String lhs = tokens.get(-1).getLiteral();
+                String lhs = tokens.getLiteral(-1);
                 //check for equal
                 if(!match(":")) {
                     throw handleError("Expected :");
@@ -145,7 +309,7 @@ public final class Parser {
                 if(!match(Token.Type.IDENTIFIER)) {
                     throw handleError("Missing Identifier");
                 }
-                String type = tokens.get(-1).getLiteral();
+                String type = tokens.getLiteral(-1);
                 if(!match("=")) {
                     //return statement
                     return new Ast.Global(lhs, type, true, Optional.empty());
@@ -171,14 +335,14 @@ public final class Parser {
     public Ast.Global parseImmutable() throws ParseException {
         try {
             if (match(Token.Type.IDENTIFIER)) {
-                String lhs = tokens.get(-1).getLiteral();
+                String lhs = tokens.getLiteral(-1);
                 if(!match(":")) {
                     throw handleError("Expected :");
                 }
                 if(!match(Token.Type.IDENTIFIER)) {
                     throw handleError("Missing Identifier");
                 }
-                String type = tokens.get(-1).getLiteral();
+                String type = tokens.getLiteral(-1);
                 if(!match("=")) {
                     //return statement
                     throw handleError("Expected '='");
@@ -201,12 +365,12 @@ public final class Parser {
     public Ast.Function parseFunction() throws ParseException {
         try {
             if(tokens.index == 0) {
-                if(!match("FUN")) {
+                if(!match(Keyword.FUN)) {
                     throw handleError("Expected FUN");
                 }
             }
             if(match(Token.Type.IDENTIFIER)) {
-                String funName = tokens.get(-1).getLiteral();
+                String funName = tokens.getLiteral(-1);
                 String funType = "";
 
                 if(match("(")) {
@@ -214,14 +378,14 @@ public final class Parser {
                     List<String> parameterTypes = new ArrayList<>();
 
                     while(match(Token.Type.IDENTIFIER)) {
-                        parameters.add(tokens.get(-1).getLiteral());
+                        parameters.add(tokens.getLiteral(-1));
                         if(!match(":")) {
                             throw handleError("Expected :");
                         }
                         if(!match(Token.Type.IDENTIFIER)) {
                             throw handleError("Missing Identifier");
                         }
-                        parameterTypes.add(tokens.get(-1).getLiteral());
+                        parameterTypes.add(tokens.getLiteral(-1));
                         if(!match(",")) {
                             if(!peek(")")) {
                                 throw handleError("Expected comma");
@@ -236,15 +400,15 @@ public final class Parser {
                         if(!match(Token.Type.IDENTIFIER)) {
                             throw handleError("Expected Identifier");
                         }
-                        funType = (tokens.get(-1).getLiteral());
+                        funType = (tokens.getLiteral(-1));
                     }
 
-                    if(!match("DO")) {
+                    if(!match(Keyword.DO)) {
                         throw handleError("Expected DO");
                     }
 
                     List<Ast.Statement> statements = parseBlock();
-                    if(!tokens.get(-1).getLiteral().equals("END")) {
+                    if(tokens.getKeyword(-1) != Keyword.END) {
                         throw handleError("Expected END");
                     }
                     if (funType.equals("")) {
@@ -262,16 +426,44 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses the function whose {@code FUN} token is at the given index, as
+     * {@link #parseSource()} would after matching it. Afterwards
+     * {@link #getTokenIndex()} is the index of the token following it.
+     */
+    Ast.Function parseFunction(int index) throws ParseException {
+        tokens.index = index + 1;
+        return parseFunction();
+    }
+
+    /**
+     * Returns the index of the next token to be parsed.
+     */
+    int getTokenIndex() {
+        return tokens.index;
+    }
+
     /**
      * Parses the {@code block} rule. This method should only be called if the
      * preceding token indicates the opening a block.
      */
     public List<Ast.Statement> parseBlock() throws ParseException {
+        if (mode == Mode.ITERATIVE) {
+            Deque<Block> blocks = new ArrayDeque<>();
+            Block root = new Block(Block.ROOT, null);
+            blocks.push(root);
+            parseBlocks(blocks);
+            return root.statements;
+        }
         try {
             List<Ast.Statement> statements = new ArrayList<>();
-            while (tokens.has(0) && !match("END")) {
-                statements.add(parseStatement());
-                if(peek("ELSE") || peek("DEFAULT")) return statements;
+            while (tokens.has(0) && !unwinding && !match(Keyword.END)) {
+                try {
+                    statements.add(parseStatement());
+                } catch (ParseException p) {
+                    recover(p);
+                }
+                if(peek(Keyword.ELSE) || peek(Keyword.DEFAULT)) return statements;
             }
 
             return statements;
@@ -286,42 +478,242 @@ public final class Parser {
      * statement, then it is an expression/assignment statement.
      */
     public Ast.Statement parseStatement() throws ParseException {
+        if (mode == Mode.ITERATIVE) {
+            Deque<Block> blocks = new ArrayDeque<>();
+            Ast.Statement statement = parseStatement(blocks);
+            return statement != null ? statement : parseBlocks(blocks);
+        }
         try {
             //if else tree for statements
-            if(match("LET")) {
+            if(match(Keyword.LET)) {
                 return parseDeclarationStatement();
-            } else if (match("SWITCH")) {
+            } else if (match(Keyword.SWITCH)) {
                 return parseSwitchStatement();
-            } else if (match("IF")) {
+            } else if (match(Keyword.IF)) {
                 return parseIfStatement();
-            } else if (match("WHILE")) {
+            } else if (match(Keyword.WHILE)) {
                 return parseWhileStatement();
-            } else if (match("RETURN")) {
+            } else if (match(Keyword.RETURN)) {
                 return parseReturnStatement();
             } else {
-                //get left hand side
-                Ast.Expression lhs = parseExpression();
-                //check for equal
-                if(!match("=")) {
-                    //check for semi colon
-                    if(!match(";")) {
-                        throw handleError("Expected ;");
+                return parseExpressionStatement();
+            }
+        } catch (ParseException p) {
+            throw new ParseException(p.getMessage(), p.getIndex());
+        }
+    }
+
+    /**
+     * Parses an expression or assignment statement from the {@code statement}
+     * rule, which is any statement not starting with a keyword.
+     */
+    private Ast.Statement parseExpressionStatement() throws ParseException {
+        //get left hand side
+        Ast.Expression lhs = parseExpression();
+        //check for equal
+        if(!match("=")) {
+            //check for semi colon
+            if(!match(";")) {
+                throw handleError("Expected ;");
+            }
+            //return statement
+            return new Ast.Statement.Expression(lhs);
+        }
+        //get right hand side
+        Ast.Expression rhs = parseExpression();
+        //check for semi colon
+        if(!match(";")) {
+            throw handleError("Expected ;");
+        }
+        //return statement
+        return new Ast.Statement.Assignment(lhs, rhs);
+    }
+
+    /**
+     * Parses a statement in {@link Mode#ITERATIVE} mode. Simple statements
+     * are returned directly; for an {@code IF}, {@code WHILE} or
+     * {@code SWITCH} the block it opens is pushed instead and {@code null} is
+     * returned, leaving the rest to {@link #parseBlocks(Deque)}.
+     */
+    private Ast.Statement parseStatement(Deque<Block> blocks) throws ParseException {
+        if (match(Keyword.LET)) {
+            return parseDeclarationStatement();
+        } else if (match(Keyword.SWITCH)) {
+            Block block = new Block(Block.CASE, parseExpression());
+            block.cases = new ArrayList<>();
+            return parseCase(block, blocks);
+        } else if (match(Keyword.IF) || match(Keyword.WHILE)) {
+            Block block = new Block(tokens.getKeyword(-1) == Keyword.IF ? Block.IF : Block.WHILE, parseExpression());
+            if (!match(Keyword.DO)) {
+                throw handleError("Missing DO");
+            }
+            blocks.push(block);
+            return null;
+        } else if (match(Keyword.RETURN)) {
+            return parseReturnStatement();
+        } else {
+            return parseExpressionStatement();
+        }
+    }
+
+    /**
+     * Parses the next {@code CASE} (or the {@code DEFAULT}) of a switch
+     * statement in {@link Mode#ITERATIVE} mode, pushing the block of its
+     * statements. Always returns {@code null}.
+     */
+    private Ast.Statement parseCase(Block block, Deque<Block> blocks) throws ParseException {
+        Block next = new Block(Block.CASE, block.condition);
+        next.cases = block.cases;
+        if (match(Keyword.CASE)) {
+            next.value = parseExpression();
+            if (!match(":")) {
+                throw handleError("Expected ':'");
+            }
+        } else if (!match(Keyword.DEFAULT)) {
+            throw handleError("Expected 'DEFAULT'");
+        } else {
+            next.kind = Block.DEFAULT;
+        }
+        blocks.push(next);
+        return null;
+    }
+
+    /**
+     * Parses the blocks on the stack in {@link Mode#ITERATIVE} mode until it
+     * is empty, following {@link #parseBlock()}: a block ends at {@code END},
+     * at the end of the input, or after a statement followed by {@code ELSE}
+     * or {@code DEFAULT}. When a block ends the statement it belongs to
+     * continues, which may open another block (an {@code ELSE} or the next
+     * case) or complete the statement.
+     *
+     * Returns the completed statement if the stack started with the block of a
+     * statement, or {@code null} once a {@link Block#ROOT} block has ended.
+     */
+    private Ast.Statement parseBlocks(Deque<Block> blocks) throws ParseException {
+        boolean ended = false;
+        while (true) {
+            Block block = blocks.peek();
+            if (!ended && tokens.has(0) && !unwinding && !match(Keyword.END)) {
+                try {
+                    Ast.Statement statement = parseStatement(blocks);
+                    if (statement != null) {
+                        block.statements.add(statement);
+                        ended = peek(Keyword.ELSE) || peek(Keyword.DEFAULT);
                     }
-                    //return statement
-                    return new Ast.Statement.Expression(lhs);
+                } catch (ParseException p) {
+                    recover(p);
+                    ended = peek(Keyword.ELSE) || peek(Keyword.DEFAULT);
                 }
-                //get right hand side
-                Ast.Expression rhs = parseExpression();
-                //check for semi colon
-                if(!match(";")) {
-                    throw handleError("Expected ;");
+                continue;
+            }
+            blocks.pop();
+            if (block.kind == Block.ROOT) {
+                return null;
+            }
+            Ast.Statement statement;
+            try {
+                statement = completeBlock(block, blocks);
+            } catch (ParseException p) {
+                //the statement failed, so recover in the enclosing block as
+                //the recursive mode does
+                if (blocks.isEmpty()) {
+                    throw p;
                 }
-                //return statement
-                return new Ast.Statement.Assignment(lhs, rhs);
+                recover(p);
+                ended = peek(Keyword.ELSE) || peek(Keyword.DEFAULT);
+                continue;
+            }
+            ended = false;
+            if (statement != null) {
+                if (blocks.isEmpty()) {
+                    return statement;
+                }
+                blocks.peek().statements.add(statement);
+                ended = peek(Keyword.ELSE) || peek(Keyword.DEFAULT);
+            }
+        }
+    }
+
+    /**
+     * Continues the statement of a block which has ended, returning the
+     * statement if it is complete or {@code null} if it opened another block.
+     */
+    private Ast.Statement completeBlock(Block block, Deque<Block> blocks) throws ParseException {
+        switch (block.kind) {
+            case Block.IF:
+                if (match(Keyword.ELSE)) {
+                    Block elseBlock = new Block(Block.ELSE, block.condition);
+                    elseBlock.thenStatements = block.statements;
+                    blocks.push(elseBlock);
+                    return null;
+                }
+                return new Ast.Statement.If(block.condition, block.statements, new ArrayList<>());
+            case Block.ELSE:
+                return new Ast.Statement.If(block.condition, block.thenStatements, block.statements);
+            case Block.WHILE:
+                if(tokens.getKeyword(-1) != Keyword.END) {
+                    throw handleError("Expected 'END'");
+                }
+                return new Ast.Statement.While(block.condition, block.statements);
+            case Block.CASE:
+                block.cases.add(new Ast.Statement.Case(Optional.of(block.value), block.statements));
+                return parseCase(block, blocks);
+            default:
+                block.cases.add(new Ast.Statement.Case(Optional.empty(), block.statements));
+                if(tokens.getKeyword(-1) != Keyword.END) {
+                    throw handleError("Expected 'END'");
+                }
+                return new Ast.Statement.Switch(block.condition, block.cases);
+        }
+    }
+
+    /**
+     * Adds an error in a statement to the errors when recovering from them,
+     * or else throws it, then skips to where the next statement should start:
+     * after the next {@code ;} or at the next {@code END}, skipping any
+     * {@code DO ... END} blocks in between.
+     *
+     * If that is the start of a declaration instead, the enclosing blocks end
+     * and the errors this causes while unwinding to the declaration are not
+     * added. Since those keywords are only reserved at the top level, this
+     * only happens after an error.
+     */
+    private void recover(ParseException error) {
+        if (errors == null) {
+            throw error;
+        } else if (unwinding) {
+            return;
+        }
+        errors.add(error);
+        int depth = 0;
+        while (tokens.has(0) && !peekDeclaration()) {
+            if (peek(Keyword.END)) {
+                if (depth == 0) {
+                    break;
+                }
+                tokens.advance();
+                if (--depth == 0) {
+                    break;
+                }
+            } else if (match(";")) {
+                if (depth == 0) {
+                    break;
+                }
+            } else {
+                if (peek(Keyword.DO)) {
+                    depth++;
+                }
+                tokens.advance();
             }
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
         }
+        unwinding = peekDeclaration();
+    }
+
+    /**
+     * Returns {@code true} if the next token starts a global or function.
+     */
+    private boolean peekDeclaration() {
+        return peek(Keyword.FUN) || peek(Keyword.VAR) || peek(Keyword.VAL) || peek(Keyword.LIST);
     }
 
     /**
@@ -332,13 +724,13 @@ public final class Parser {
     public Ast.Statement.Declaration parseDeclarationStatement() throws ParseException {
         try {
             if (match(Token.Type.IDENTIFIER)) {
-                String lhs = tokens.get(-1).getLiteral();
+                String lhs = tokens.getLiteral(-1);
                 String type = "";
                 if(match(":")) {
                     if(!match(Token.Type.IDENTIFIER)) {
                         throw handleError("Expected Identifier");
                     }
-                    type = tokens.get(-1).getLiteral();
+                    type = tokens.getLiteral(-1);
                 }
                 Optional<Ast.Expression> rhs = Optional.empty();
                 if (match("=")) rhs = Optional.of(parseExpression());
@@ -365,12 +757,12 @@ public final class Parser {
      */
     public Ast.Statement.If parseIfStatement() throws ParseException {
         Ast.Expression expression = parseExpression();
-        if (!match("DO"))
+        if (!match(Keyword.DO))
             throw handleError("Missing DO");
 
         List<Ast.Statement> doBlock = parseBlock();
         List<Ast.Statement> elseBlock = new ArrayList<>();
-        if (match("ELSE")) elseBlock = parseBlock();
+        if (match(Keyword.ELSE)) elseBlock = parseBlock();
 
         return new Ast.Statement.If(expression, doBlock, elseBlock);
     }
@@ -384,14 +776,14 @@ public final class Parser {
         try {
             Ast.Expression expression = parseExpression();
             List<Ast.Statement.Case> cases = new ArrayList<>();
-            while(match("CASE")) {
+            while(match(Keyword.CASE)) {
                 cases.add(parseCaseStatement());
             }
-            if(!match("DEFAULT")) {
+            if(!match(Keyword.DEFAULT)) {
                 throw handleError("Expected 'DEFAULT'");
             }
             cases.add(new Ast.Statement.Case(Optional.empty(), parseBlock()));
-            if(!tokens.get(-1).getLiteral().equals("END")) {
+            if(tokens.getKeyword(-1) != Keyword.END) {
                 throw handleError("Expected 'END'");
             }
             return new Ast.Statement.Switch(expression, cases);
@@ -421,12 +813,12 @@ public final class Parser {
     public Ast.Statement.While parseWhileStatement() throws ParseException {
         try {
             Ast.Expression expression = parseExpression();
-            if (!match("DO"))
+            if (!match(Keyword.DO))
                 throw handleError("Missing DO");
 
             List<Ast.Statement> statements = parseBlock();
 
-            if(!tokens.get(-1).getLiteral().equals("END")) {
+            if(tokens.getKeyword(-1) != Keyword.END) {
                 throw handleError("Expected 'END'");
             }
             return new Ast.Statement.While(expression, statements);
@@ -457,99 +849,199 @@ public final class Parser {
      * Parses the {@code expression} rule.
      */
     public Ast.Expression parseExpression() throws ParseException {
-        try {
-            //return logical expression
-            return parseLogicalExpression();
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expression parseLogicalExpression() throws ParseException {
-        try {
-            //return comparison expression
-            Ast.Expression fullExpression = parseComparisonExpression();
-            //check for logical characters
-            while (match("&&") || match("||")) {
-                //get operation and right expression
-                String operation = tokens.get(-1).getLiteral();
-                Ast.Expression rightExpression = parseComparisonExpression();
-                //set full expression to binary
-                fullExpression = new Ast.Expression.Binary(operation, fullExpression, rightExpression);
-            }
-            //return expression
-            return fullExpression;
-        } catch(ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code equality-expression} rule.
      */
     public Ast.Expression parseComparisonExpression() throws ParseException {
-        try {
-            //return additive expression
-            Ast.Expression fullExpression = parseAdditiveExpression();
-            //check for comparison characters
-            while(match("<") || match(">") || match("==") || match("!=")) {
-                //get operation and right expression
-                String operation = tokens.get(-1).getLiteral();
-                Ast.Expression rightExpression = parseComparisonExpression();
-                //set full expression to binary
-                fullExpression = new Ast.Expression.Binary(operation, fullExpression, rightExpression);
-            }
-            return fullExpression;
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
+        return parseBinaryExpression(COMPARISON);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expression parseAdditiveExpression() throws ParseException {
-        try {
-            //return multiplicative expression
-            Ast.Expression fullExpression = parseMultiplicativeExpression();
-            //check for additive characters
-            while(match("+") || match("-")) {
-                //get operation and right expression
-                String operation = tokens.get(-1).getLiteral();
-                Ast.Expression rightExpression = parseMultiplicativeExpression();
-                //set full expression to binary
-                fullExpression = new Ast.Expression.Binary(operation, fullExpression, rightExpression);
-            }
-            //return expression
-            return fullExpression;
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
+        return parseBinaryExpression(ADDITIVE);
     }
 
     /**
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expression parseMultiplicativeExpression() throws ParseException {
-        try {
-            //return primary expression
-            Ast.Expression fullExpression = parsePrimaryExpression();
-            //check for multiplicative characters
-            while(match("/") || match("*") || match("^")) {
-                //get operation and left expression
-                String operation = tokens.get(-1).getLiteral();
-                Ast.Expression rightExpression = parsePrimaryExpression();
-                //set full expression to binary operation
-                fullExpression = new Ast.Expression.Binary(operation, fullExpression, rightExpression);
-            }
-            //return expression
-            return fullExpression;
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+        return parseBinaryExpression(MULTIPLICATIVE);
+    }
+
+    /**
+     * Parses a chain of binary operators whose precedence is at least the
+     * given one, using precedence climbing over {@link #OPERATORS}. Each
+     * operand is parsed by a single call to {@link #parsePrimaryExpression()}
+     * instead of one call per precedence level.
+     *
+     * The right operand of a left associative operator only takes operators
+     * which bind tighter, so the loop folds the chain to the left. A right
+     * associative operator takes operators of its own precedence as well,
+     * which nests the chain to the right.
+     */
+    private Ast.Expression parseBinaryExpression(int precedence) throws ParseException {
+        if (mode == Mode.ITERATIVE) {
+            return parseIterativeExpression(precedence);
+        }
+        Ast.Expression expression = parsePrimaryExpression();
+        Operator operator = peekOperator();
+        while (operator != null && operator.precedence >= precedence) {
+            tokens.advance();
+            Ast.Expression right = parseBinaryExpression(operator.rightAssociative ? operator.precedence : operator.precedence + 1);
+            expression = new Ast.Expression.Binary(operator.literal, expression, right);
+            operator = peekOperator();
         }
+        return expression;
+    }
+
+    /**
+     * Parses the same chains as {@link #parseBinaryExpression(int)} in
+     * {@link Mode#ITERATIVE} mode, using the shunting-yard algorithm: operands
+     * and pending operators are kept on stacks, and an operator is reduced
+     * once an operator which binds less tightly follows it.
+     *
+     * Groups, calls and indexes are parsed by pushing a {@link Nesting} which
+     * remembers how many operators were pending when it was opened. When no
+     * operator follows, the operators of the innermost nesting are reduced
+     * and the nesting is closed, which makes the result an operand of the
+     * enclosing one.
+     */
+    private Ast.Expression parseIterativeExpression(int precedence) throws ParseException {
+        Deque<Ast.Expression> operands = new ArrayDeque<>();
+        Deque<Operator> operators = new ArrayDeque<>();
+        Deque<Nesting> nestings = new ArrayDeque<>();
+        while (true) {
+            Ast.Expression operand = parseOperand(nestings, operators.size());
+            if (operand == null) {
+                continue;
+            }
+            operands.push(operand);
+            while (true) {
+                //nested expressions are full expressions, not just the chain
+                int minimum = nestings.isEmpty() ? precedence : LOGICAL;
+                int base = nestings.isEmpty() ? 0 : nestings.peek().base;
+                Operator operator = peekOperator();
+                if (operator != null && operator.precedence >= minimum) {
+                    while (operators.size() > base && binds(operators.peek(), operator)) {
+                        reduce(operands, operators);
+                    }
+                    operators.push(operator);
+                    tokens.advance();
+                    break;
+                }
+                while (operators.size() > base) {
+                    reduce(operands, operators);
+                }
+                if (nestings.isEmpty()) {
+                    return operands.pop();
+                }
+                Nesting nesting = nestings.peek();
+                Ast.Expression expression = operands.pop();
+                if (nesting.kind == Nesting.CALL) {
+                    nesting.arguments.add(expression);
+                    if (match(",")) {
+                        break;
+                    } else if (!match(")")) {
+                        throw handleError("Need closing parenthesis");
+                    }
+                    expression = new Ast.Expression.Function(nesting.name, nesting.arguments);
+                } else if (nesting.kind == Nesting.INDEX) {
+                    if (!match("]")) {
+                        throw handleError("Need closing brace");
+                    }
+                    expression = new Ast.Expression.Access(Optional.of(expression), nesting.name);
+                } else {
+                    if (!match(")")) {
+                        throw handleError("Need closing parenthesis");
+                    }
+                    expression = new Ast.Expression.Group(expression);
+                }
+                nestings.pop();
+                operands.push(expression);
+            }
+        }
+    }
+
+    /**
+     * Parses an operand in {@link Mode#ITERATIVE} mode, following
+     * {@link #parsePrimaryExpression()}. If the operand opens a group, call or
+     * index, a {@link Nesting} is pushed instead and {@code null} is returned.
+     */
+    private Ast.Expression parseOperand(Deque<Nesting> nestings, int base) throws ParseException {
+        if(!tokens.has(0)) {
+            throw handleError("Missing expression");
+        }
+        Ast.Expression literal = parseLiteralExpression();
+        if (literal != null) {
+            return literal;
+        } else if (match(Token.Type.IDENTIFIER)) {
+            String name = tokens.getLiteral(-1);
+            if (match("(")) {
+                if (match(")")) {
+                    return new Ast.Expression.Function(name, Collections.emptyList());
+                }
+                nestings.push(new Nesting(Nesting.CALL, name, base));
+                return null;
+            } else if (match("[")) {
+                if (match("]")) {
+                    return new Ast.Expression.Access(Optional.empty(), name);
+                }
+                nestings.push(new Nesting(Nesting.INDEX, name, base));
+                return null;
+            }
+            return new Ast.Expression.Access(Optional.empty(), name);
+        } else if (match("(")) {
+            nestings.push(new Nesting(Nesting.GROUP, null, base));
+            return null;
+        }
+        throw handleError("Invalid primary expression");
+    }
+
+    /**
+     * Returns {@code true} if the pending operator takes its right operand
+     * before the following operator does, which is when it binds tighter or
+     * they have the same precedence and are left associative.
+     */
+    private static boolean binds(Operator pending, Operator next) {
+        return pending.precedence > next.precedence
+                || pending.precedence == next.precedence && !next.rightAssociative;
+    }
+
+    /**
+     * Replaces the top two operands with the top operator applied to them.
+     */
+    private static void reduce(Deque<Ast.Expression> operands, Deque<Operator> operators) {
+        Ast.Expression right = operands.pop();
+        Ast.Expression left = operands.pop();
+        operands.push(new Ast.Expression.Binary(operators.pop().literal, left, right));
+    }
+
+    /**
+     * Returns the binary operator of the next token, or {@code null} if it is
+     * not one. As with {@link #peek(Object...)}, only the literal is compared.
+     */
+    private Operator peekOperator() {
+        if (!tokens.has(0) || tokens.getLength(0) > MAX_OPERATOR_LENGTH) {
+            return null;
+        }
+        for (Operator operator : OPERATORS) {
+            if (tokens.matches(0, operator.literal)) {
+                return operator;
+            }
+        }
+        return null;
     }
 
     /**
@@ -562,51 +1054,13 @@ public final class Parser {
         if(!tokens.has(0)) {
             throw handleError("Missing expression");
         }
-        //check for nil
-        if(match("NIL")) {
-            //return null expression
-            return new Ast.Expression.Literal(null);
-            //check for true
-        } else if (match("TRUE")) {
-            //return true expression
-            return new Ast.Expression.Literal(true);
-            //check for false
-        } else if (match("FALSE")) {
-            //return false expression
-            return new Ast.Expression.Literal(false);
-            //check for int token
-        } else if (match(Token.Type.INTEGER)) {
-            //return BigInteger token
-            return new Ast.Expression.Literal(new BigInteger(tokens.get(-1).getLiteral()));
-            //check for decimal token
-        } else if (match(Token.Type.DECIMAL)) {
-            //return BigDecimal token
-            return new Ast.Expression.Literal(new BigDecimal(tokens.get(-1).getLiteral()));
-            //check for character token
-        } else if (match(Token.Type.CHARACTER)) {
-            //return character token
-            return new Ast.Expression.Literal(tokens.get(-1).getLiteral().charAt(1));
-            //check for string token
-        } else if (match(Token.Type.STRING)) {
-            //grab the literal
-            String str = tokens.get(-1).getLiteral();
-            str = str.substring(1, str.length() - 1);
-            //change the \\ to proper escape characters
-            if(str.contains("\\")) {
-                str = str.replace("\\n", "\n")
-                        .replace("\\t", "\t")
-                        .replace("\\b", "\b")
-                        .replace("\\r", "\r")
-                        .replace("\\'", "'")
-                        .replace("\\\\", "\\")
-                        .replace("\\\"", "\"");
-            }
-            //return string expression
-            return new Ast.Expression.Literal(str);
+        Ast.Expression literal = parseLiteralExpression();
+        if (literal != null) {
+            return literal;
             //Check for identifier token
         } else if (match(Token.Type.IDENTIFIER)) {
             //get literal
-            String name = tokens.get(-1).getLiteral();
+            String name = tokens.getLiteral(-1);
             //check for parenthesis
             if(match("(")) {
                 //check for empty list
@@ -628,7 +1082,7 @@ public final class Parser {
                     }
                 } else {
                     //check for ending parenthesis
-                    if (!tokens.get(-1).getLiteral().equals(")")) {
+                    if (!tokens.matches(-1, ")")) {
                         throw handleError("Need closing parenthesis");
                     } else {
                         return new Ast.Expression.Function(name, Collections.emptyList());
@@ -647,7 +1101,7 @@ public final class Parser {
                     }
                 } else {
                     //check for closing brace
-                    if (!tokens.get(-1).getLiteral().equals("]")) {
+                    if (!tokens.matches(-1, "]")) {
                         throw handleError("Need closing brace");
                     } else {
                         return new Ast.Expression.Access(Optional.empty(), name);
@@ -672,26 +1126,99 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses a literal value from the {@code primary-expression} rule,
+     * returning {@code null} if the next token is not a literal.
+     */
+    private Ast.Expression parseLiteralExpression() {
+        //check for nil
+        if(match(Keyword.NIL)) {
+            //return null expression
+            return new Ast.Expression.Literal(null);
+            //check for true
+        } else if (match(Keyword.TRUE)) {
+            //return true expression
+            return new Ast.Expression.Literal(true);
+            //check for false
+        } else if (match(Keyword.FALSE)) {
+            //return false expression
+            return new Ast.Expression.Literal(false);
+            //check for int token
+        } else if (match(Token.Type.INTEGER)) {
+            //return Long or BigInteger token
+            try {
+                return new Ast.Expression.Literal(parseInteger(tokens.getLiteral(-1)));
+            } catch (NumberFormatException e) {
+                throw new ParseException("Invalid integer", tokens.getIndex(-1));
+            }
+            //check for decimal token
+        } else if (match(Token.Type.DECIMAL)) {
+            //return BigDecimal token
+            return new Ast.Expression.Literal(new BigDecimal(tokens.getLiteral(-1)));
+            //check for character token
+        } else if (match(Token.Type.CHARACTER)) {
+            //return character token
+            return new Ast.Expression.Literal(tokens.getLiteral(-1).charAt(1));
+            //check for string token
+        } else if (match(Token.Type.STRING)) {
+            //grab the literal
+            String str = tokens.getLiteral(-1);
+            str = str.substring(1, str.length() - 1);
+            //change the \\ to proper escape characters
+            if(str.contains("\\")) {
+                str = str.replace("\\n", "\n")
+                        .replace("\\t", "\t")
+                        .replace("\\b", "\b")
+                        .replace("\\r", "\r")
+                        .replace("\\'", "'")
+                        .replace("\\\\", "\\")
+                        .replace("\\\"", "\"");
+            }
+            //return string expression
+            return new Ast.Expression.Literal(str);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of an integer literal as a {@link Long} if it fits in
+     * 64 bits, or else as a {@link BigInteger}.
+     */
+    private static Object parseInteger(String literal) {
+        //any literal of 18 characters fits in a long
+        if (literal.length() <= 18) {
+            return Long.parseLong(literal);
+        }
+        BigInteger value = new BigInteger(literal);
+        return value.bitLength() < 64 ? (Object) value.longValue() : value;
+    }
+
     /**
      * As in the lexer, returns {@code true} if the current sequence of tokens
      * matches the given patterns. Unlike the lexer, the pattern is not a regex;
      * instead it is either a {@link Token.Type}, which matches if the token's
-     * type is the same, or a {@link String}, which matches if the token's
-     * literal is the same.
+     * type is the same, a {@link String}, which matches if the token's
+     * literal is the same, or a {@link Keyword}, which matches if the token
+     * spells that keyword (compared by symbol, not by string).
      *
      * In other words, {@code Token(IDENTIFIER, "literal")} is matched by both
-     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}.
+     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}, and
+     * {@code Token(IDENTIFIER, "LET")} by {@code peek(Keyword.LET)}.
      */
     private boolean peek(Object... patterns) {
         for (int i = 0; i < patterns.length; i++) {
             if (!tokens.has(i)) {
                 return false;
             } else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
+                if (patterns[i] != tokens.getType(i)) {
+                    return false;
+                }
+            } else if (patterns[i] instanceof Keyword) {
+                if (patterns[i] != tokens.getKeyword(i)) {
                     return false;
                 }
             } else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
+                if (!tokens.matches(i, (String) patterns[i])) {
                     return false;
                 }
             } else {
@@ -715,29 +1242,147 @@ public final class Parser {
         return peek;
     }
 
-    private static final class TokenStream {
+    private static final class Operator {
 
-        private final List<Token> tokens;
-        private int index = 0;
+        private final String literal;
+        private final int precedence;
+        private final boolean rightAssociative;
 
-        private TokenStream(List<Token> tokens) {
-            this.tokens = tokens;
+        private Operator(String literal, int precedence, boolean rightAssociative) {
+            this.literal = literal;
+            this.precedence = precedence;
+            this.rightAssociative = rightAssociative;
         }
 
+    }
+
+    /**
+     * Top-level globals and functions parsed earlier, by the index of their
+     * first token, for {@link #parseSource(Declarations)} to reuse.
+     *
+     * A declaration only depends on its own tokens and the token following
+     * it, so it can be reused wherever those tokens are unchanged.
+     */
+    interface Declarations {
+
         /**
-         * Returns true if there is a token at index + offset.
+         * Returns the global or function starting at the given token, or
+         * {@code null} if it has to be parsed. May instead throw the
+         * exception parsing it threw.
          */
-        public boolean has(int offset) {
-            return index + offset < tokens.size();
-        }
+        Ast get(int start);
 
         /**
-         * Gets the token at index + offset.
+         * Returns the index of the token following the declaration starting
+         * at the given token.
          */
-        public Token get(int offset) {
-            return tokens.get(index + offset);
+        int getEnd(int start);
+
+        /**
+         * Records the declaration taken from the given range of tokens, in
+         * the order of the source.
+         */
+        void put(int start, int end, Ast declaration);
+
+    }
+
+    /**
+     * A group, call or index whose closing token has not been reached yet,
+     * used by {@link Mode#ITERATIVE} expression parsing.
+     */
+    private static final class Nesting {
+
+        private static final int GROUP = 0;
+        private static final int CALL = 1;
+        private static final int INDEX = 2;
+
+        private final int kind;
+        private final String name;
+        private final List<Ast.Expression> arguments = new ArrayList<>();
+        private final int base;
+
+        private Nesting(int kind, String name, int base) {
+            this.kind = kind;
+            this.name = name;
+            this.base = base;
         }
 
+    }
+
+    /**
+     * A block whose statements are being parsed in {@link Mode#ITERATIVE}
+     * mode, along with what the statement it belongs to has parsed so far.
+     * {@link #ROOT} is a block parsed by {@link #parseBlock()} itself.
+     */
+    private static final class Block {
+
+        private static final int ROOT = 0;
+        private static final int IF = 1;
+        private static final int ELSE = 2;
+        private static final int WHILE = 3;
+        private static final int CASE = 4;
+        private static final int DEFAULT = 5;
+
+        private int kind;
+        private final Ast.Expression condition;
+        private final List<Ast.Statement> statements = new ArrayList<>();
+        private List<Ast.Statement> thenStatements;
+        private List<Ast.Statement.Case> cases;
+        private Ast.Expression value;
+
+        private Block(int kind, Ast.Expression condition) {
+            this.kind = kind;
+            this.condition = condition;
+        }
+
+    }
+
+    /**
+     * The sequence of tokens being parsed. Tokens are accessed relative to the
+     * current index, so {@code getLiteral(-1)} is the literal of the token
+     * which was just matched.
+     */
+    private static abstract class TokenStream {
+
+        int index = 0;
+
+        /**
+         * Returns true if there is a token at index + offset.
+         */
+        public abstract boolean has(int offset);
+
+        /**
+         * Gets the type of the token at index + offset.
+         */
+        public abstract Token.Type getType(int offset);
+
+        /**
+         * Gets the literal of the token at index + offset.
+         */
+        public abstract String getLiteral(int offset);
+
+        /**
+         * Gets the position in the source of the token at index + offset.
+         */
+        public abstract int getIndex(int offset);
+
+        /**
+         * Gets the length of the literal of the token at index + offset.
+         */
+        public abstract int getLength(int offset);
+
+        /**
+         * Returns true if the literal of the token at index + offset is equal
+         * to the given literal.
+         */
+        public abstract boolean matches(int offset, String literal);
+
+        /**
+         * Gets the keyword spelled by the token at index + offset, or
+         * {@code null} if it is not a keyword.
+         */
+        public abstract Keyword getKeyword(int offset);
+
         /**
          * Advances to the next token, incrementing the index.
          */
@@ -746,4 +1391,164 @@ public final class Parser {
         }
 
     }
-}
\ No newline at end of file
+
+    private static final class ListTokenStream extends TokenStream {
+
+        private final List<Token> tokens;
+
+        private ListTokenStream(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            return index + offset < tokens.size();
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return tokens.get(index + offset).getType();
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return tokens.get(index + offset).getLiteral();
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return tokens.get(index + offset).getIndex();
+        }
+
+        @Override
+        public int getLength(int offset) {
+            return tokens.get(index + offset).getLength();
+        }
+
+        @Override
+        public boolean matches(int offset, String literal) {
+            return tokens.get(index + offset).matches(literal);
+        }
+
+        @Override
+        public Keyword getKeyword(int offset) {
+            return tokens.get(index + offset).getKeyword();
+        }
+
+    }
+
+    private static final class BufferTokenStream extends TokenStream {
+
+        private final TokenBuffer tokens;
+
+        private BufferTokenStream(TokenBuffer tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            return index + offset < tokens.size();
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return tokens.getType(index + offset);
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return tokens.getLiteral(index + offset);
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return tokens.getStart(index + offset);
+        }
+
+        @Override
+        public int getLength(int offset) {
+            return tokens.getLength(index + offset);
+        }
+
+        @Override
+        public boolean matches(int offset, String literal) {
+            return tokens.matches(index + offset, literal);
+        }
+
+        @Override
+        public Keyword getKeyword(int offset) {
+            return tokens.getKeyword(index + offset);
+        }
+
+    }
+
+    /**
+     * Reads tokens from an iterator into a ring buffer. The parser looks at
+     * most one token behind and one token ahead of the current index, so a
+     * ring of {@link #CAPACITY} tokens is never overwritten while in use.
+     */
+    private static final class IteratorTokenStream extends TokenStream {
+
+        private static final int CAPACITY = 4;
+
+        private final Iterator<Token> iterator;
+        private final Token[] ring = new Token[CAPACITY];
+        private int size = 0;
+
+        private IteratorTokenStream(Iterator<Token> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean has(int offset) {
+            int position = index + offset;
+            while (size <= position && iterator.hasNext()) {
+                if (position - index >= CAPACITY - 1) {
+                    throw new IllegalStateException("Lookahead of " + offset + " exceeds the token buffer");
+                }
+                ring[size++ & (CAPACITY - 1)] = iterator.next();
+            }
+            return position < size;
+        }
+
+        private Token get(int offset) {
+            int position = index + offset;
+            if (position < 0 || position < size - CAPACITY || !has(offset)) {
+                throw new IndexOutOfBoundsException("Token " + position + " is not buffered");
+            }
+            return ring[position & (CAPACITY - 1)];
+        }
+
+        @Override
+        public Token.Type getType(int offset) {
+            return get(offset).getType();
+        }
+
+        @Override
+        public String getLiteral(int offset) {
+            return get(offset).getLiteral();
+        }
+
+        @Override
+        public int getIndex(int offset) {
+            return get(offset).getIndex();
+        }
+
+        @Override
+        public int getLength(int offset) {
+            return get(offset).getLength();
+        }
+
+        @Override
+        public boolean matches(int offset, String literal) {
+            return get(offset).matches(literal);
+        }
+
+        @Override
+        public Keyword getKeyword(int offset) {
+            return get(offset).getKeyword();
+        }
+
+    }
+
+}
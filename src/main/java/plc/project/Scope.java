@@ -1,6 +1,7 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,19 +10,30 @@ import java.util.function.Function;
 public final class Scope {
 
     private final Scope parent;
+    /**
+     * The scope at the top of the chain, which counts the functions defined
+     * in every scope below it.
+     */
+    private final Scope root;
+    private int functionVersion = 0;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    /**
+     * Functions by name, each an array indexed by arity, so a lookup is one
+     * map access with no key to build.
+     */
+    private final Map<String, Environment.Function[]> functions = new HashMap<>();
 
     public Scope(Scope parent) {
         this.parent = parent;
+        this.root = parent == null ? this : parent.root;
     }
 
     public Scope getParent() {
         return parent;
     }
 
-    public void defineVariable(String name, boolean mutable, Environment.PlcObject value) {
-        defineVariable(name, name, Environment.Type.ANY, mutable, value);
+    public Environment.Variable defineVariable(String name, boolean mutable, Environment.PlcObject value) {
+        return defineVariable(name, name, Environment.Type.ANY, mutable, value);
     }
 
     public Environment.Variable defineVariable(String name, String jvmName, Environment.Type type, boolean mutable, Environment.PlcObject value) {
@@ -35,41 +47,70 @@ public final class Scope {
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
-        } else if (parent != null) {
-            return parent.lookupVariable(name);
-        } else {
-            throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Variable variable = scope.variables.get(name);
+            if (variable != null) {
+                return variable;
+            }
         }
+        throw new RuntimeException("The variable " + name + " is not defined in this scope.");
     }
 
-    public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
+    public Environment.Function defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
         List<Environment.Type> parameterTypes = new ArrayList<>();
         for (int i = 0; i < arity; i++) {
             parameterTypes.add(Environment.Type.ANY);
         }
-        defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
+        return defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
+        int arity = parameterTypes.size();
+        Environment.Function[] overloads = functions.get(name);
+        if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+            throw new RuntimeException("The function " + name + "/" + arity + " is already defined in this scope.");
         } else {
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            if (overloads == null || arity >= overloads.length) {
+                overloads = overloads == null ? new Environment.Function[arity + 1] : Arrays.copyOf(overloads, arity + 1);
+                functions.put(name, overloads);
+            }
+            overloads[arity] = func;
+            root.functionVersion++;
             return func;
         }
     }
 
+    /**
+     * Returns a count of the functions defined in any scope which shares this
+     * scope's root. A lookup only resolves differently once a function has
+     * been defined, so a resolved function can be reused as long as the
+     * version is the same.
+     */
+    public int getFunctionVersion() {
+        return root.functionVersion;
+    }
+
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
-            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Function[] overloads = scope.functions.get(name);
+            if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+                return overloads[arity];
+            }
+        }
+        throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+    }
+
+    private List<String> functionNames() {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Environment.Function[]> entry : functions.entrySet()) {
+            for (int arity = 0; arity < entry.getValue().length; arity++) {
+                if (entry.getValue()[arity] != null) {
+                    names.add(entry.getKey() + "/" + arity);
+                }
+            }
         }
+        return names;
     }
 
     @Override
@@ -77,7 +118,7 @@ public final class Scope {
         return "Scope{" +
                 "parent=" + parent +
                 ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", functions=" + functionNames() +
                 '}';
     }
 
@@ -0,0 +1,155 @@
+package plc.project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A lexer which reads its input incrementally from a {@link Reader} (or a
+ * {@link ReadableByteChannel}) and hands out tokens on demand, so the program
+ * never has to be held in memory as a single string.
+ *
+ * Characters are read into a bounded buffer and classified with the tables of
+ * {@link DfaLexer}, so the tokens and {@link ParseException}s are the same as
+ * {@link Lexer#lex()}. Input before the current token is discarded when the
+ * buffer is refilled; the buffer only grows if a single token is longer than
+ * it.
+ */
+public final class StreamingLexer implements Iterator<Token>, Closeable {
+
+    private final Reader reader;
+    private char[] buffer;
+    private int offset = 0;
+    private int start = 0;
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    public StreamingLexer(Reader reader) {
+        this(reader, 8192);
+    }
+
+    public StreamingLexer(Reader reader, int capacity) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(capacity, 1)];
+    }
+
+    public StreamingLexer(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newReader(channel, charset.newDecoder(), -1));
+    }
+
+    /**
+     * Skips whitespace, returning true if there is another token.
+     */
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            start = position;
+            if (!available()) {
+                return false;
+            }
+            int cls = DfaLexer.classify(buffer[position]);
+            if (cls != DfaLexer.C_SPACE && cls != DfaLexer.C_EOL) {
+                return true;
+            }
+            position++;
+        }
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int state = DfaLexer.S_START;
+        while (true) {
+            int action = DfaLexer.transition(state, available() ? DfaLexer.classify(buffer[position]) : DfaLexer.C_EOF);
+            if (action < DfaLexer.ACCEPT) {
+                state = action;
+                position++;
+            } else if (action < DfaLexer.ERROR) {
+                if (action >= DfaLexer.ACCEPT_CONSUME) {
+                    position++;
+                }
+                Token token = new Token(DfaLexer.acceptedType(action), new String(buffer, start, position - start), offset + start);
+                start = position;
+                return token;
+            } else {
+                throw DfaLexer.error(action, offset + position);
+            }
+        }
+    }
+
+    /**
+     * Returns the remaining tokens as a lazily populated spliterator.
+     */
+    public Spliterator<Token> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns the remaining tokens as a sequential, lazily populated stream.
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Returns true if there is a character at the current position, reading
+     * more input if needed.
+     */
+    private boolean available() {
+        return position < limit || fill();
+    }
+
+    /**
+     * Discards everything before the current token and reads more input into
+     * the buffer, growing it only if the token fills the whole buffer.
+     */
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            offset += start;
+            position -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, limit, buffer.length - limit);
+            } while (read == 0);
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifiers, assigning each distinct name a small integer symbol so
+ * that later phases can compare names by symbol instead of by string, and so
+ * every occurrence of a name shares a single {@link String}.
+ *
+ * Names are looked up directly from the source through an open-addressing
+ * table, so an identifier which has already been seen does not allocate. The
+ * {@link Keyword}s are interned first, so symbols {@code 0} to
+ * {@code Keyword.values().length - 1} are the keywords in every table.
+ *
+ * A table is meant to be shared by the phases of a single compilation and is
+ * not thread-safe.
+ */
+public final class SymbolTable {
+
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] slots = new int[128];
+    private int size = 0;
+
+    public SymbolTable() {
+        for (Keyword keyword : Keyword.values()) {
+            intern(keyword.name());
+        }
+    }
+
+    /**
+     * Returns the symbol of the given name, adding it if it is new.
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Returns the symbol of the name spelled by {@code [start, end)} of the
+     * source, adding it if it is new. The name is only copied out of the
+     * source when it is added.
+     */
+    public int intern(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int symbol = slots[slot] - 1;
+            if (hashes[symbol] == hash && equals(names[symbol], source, start, end)) {
+                return symbol;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(source.subSequence(start, end).toString(), hash, slot);
+    }
+
+    /**
+     * Returns the interned name of the given symbol.
+     */
+    public String getName(int symbol) {
+        if (symbol < 0 || symbol >= size) {
+            throw new IndexOutOfBoundsException("Symbol " + symbol + " out of bounds for length " + size);
+        }
+        return names[symbol];
+    }
+
+    /**
+     * Returns the number of symbols, including the keywords.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int symbol = size++;
+        names[symbol] = name;
+        hashes[symbol] = hash;
+        slots[slot] = symbol + 1;
+        //keep the table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = mix(hashes[symbol]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    /**
+     * Spreads the high bits of the hash into the low bits used for the slot.
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns true if the name is equal to {@code [start, end)} of the source.
+     */
+    static boolean equals(String name, CharSequence source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
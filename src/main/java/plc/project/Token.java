@@ -12,13 +12,51 @@ public final class Token {
     }
 
     private final Type type;
-    private final String literal;
+    private final CharSequence source;
+    private final int start;
     private final int index;
+    private final int length;
+    private final int symbol;
+    private final Keyword keyword;
+    private String literal;
 
     public Token(Type type, String literal, int index) {
+        this(type, literal, index, -1);
+    }
+
+    /**
+     * Creates an identifier token whose literal was interned in a
+     * {@link SymbolTable} with the given symbol.
+     */
+    public Token(Type type, String literal, int index, int symbol) {
         this.type = type;
-        this.literal = literal;
+        this.source = literal;
+        this.start = 0;
         this.index = index;
+        this.length = literal.length();
+        this.symbol = symbol;
+        this.keyword = symbol >= 0 ? Keyword.of(symbol) : type == Type.IDENTIFIER ? Keyword.of(literal) : null;
+        this.literal = literal;
+    }
+
+    private Token(Type type, CharSequence source, int start, int end) {
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.index = start;
+        this.length = end - start;
+        this.symbol = -1;
+        this.keyword = type == Type.IDENTIFIER ? Keyword.of(source, start, end) : null;
+    }
+
+    /**
+     * Creates a token whose literal is the range {@code [start, end)} of the
+     * source, without copying it. The literal is only turned into a string
+     * (and cached) the first time {@link #getLiteral()} is called, so the
+     * source must not change while the token is in use.
+     */
+    public static Token view(Type type, CharSequence source, int start, int end) {
+        return new Token(type, source, start, end);
     }
 
     public Type getType() {
@@ -26,24 +64,70 @@ public final class Token {
     }
 
     public String getLiteral() {
+        if (literal == null) {
+            literal = source.subSequence(start, start + length).toString();
+        }
         return literal;
     }
 
+    /**
+     * Returns the length of the literal without creating it.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns true if the literal is equal to the given string, without
+     * creating the literal.
+     */
+    public boolean matches(String literal) {
+        return SymbolTable.equals(literal, source, start, start + length);
+    }
+
     public int getIndex() {
         return index;
     }
 
+    /**
+     * Returns the symbol of the literal in the {@link SymbolTable} of the
+     * lexer, or {@code -1} if the token was not interned.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the keyword this token spells, or {@code null} if it is not a
+     * keyword.
+     */
+    public Keyword getKeyword() {
+        return keyword;
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
                 && type == ((Token) obj).type
-                && literal.equals(((Token) obj).literal)
+                && matches((Token) obj)
                 && index == ((Token) obj).index;
     }
 
     @Override
     public String toString() {
-        return type + "=" + literal + "@" + index;
+        return type + "=" + getLiteral() + "@" + index;
+    }
+
+    private boolean matches(Token other) {
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != other.source.charAt(other.start + i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
 }
@@ -0,0 +1,193 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact token sequence stored as parallel primitive arrays over the
+ * original source, instead of one {@link Token} object (and one copied
+ * literal) per token.
+ *
+ * Each token is a type, a start offset and a length. Literals are only turned
+ * into strings when {@link #getLiteral(int)} or {@link #get(int)} is called;
+ * comparisons through {@link #matches(int, String)} read the source directly.
+ * Identifiers may also carry their symbol in a {@link SymbolTable}, in which
+ * case their literal is the interned name and keywords are found by symbol.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final CharSequence source;
+    private final SymbolTable table;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] symbols;
+    private int size = 0;
+
+    public TokenBuffer(CharSequence source) {
+        this(source, 16);
+    }
+
+    public TokenBuffer(CharSequence source, int capacity) {
+        this(source, null, capacity);
+    }
+
+    /**
+     * Creates a buffer whose identifiers are interned in the given table,
+     * which may be {@code null} if symbols are not recorded.
+     */
+    public TokenBuffer(CharSequence source, SymbolTable table, int capacity) {
+        this.source = source;
+        this.table = table;
+        this.types = new byte[Math.max(capacity, 1)];
+        this.starts = new int[types.length];
+        this.lengths = new int[types.length];
+        this.symbols = new int[types.length];
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return table;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a token covering {@code [start, start + length)} of the source.
+     */
+    public void add(Token.Type type, int start, int length) {
+        add(type, start, length, -1);
+    }
+
+    /**
+     * Appends a token with the given symbol in the table of this buffer, or
+     * {@code -1} if it was not interned.
+     */
+    public void add(Token.Type type, int start, int length, int symbol) {
+        if (size == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        symbols[size] = symbol;
+        size++;
+    }
+
+    public Token.Type getType(int i) {
+        return TYPES[types[check(i)]];
+    }
+
+    /**
+     * Returns the offset of the token in the source, the same value as
+     * {@link Token#getIndex()}.
+     */
+    public int getStart(int i) {
+        return starts[check(i)];
+    }
+
+    public int getLength(int i) {
+        return lengths[check(i)];
+    }
+
+    /**
+     * Returns the symbol of the token, or {@code -1} if it was not interned.
+     */
+    public int getSymbol(int i) {
+        return symbols[check(i)];
+    }
+
+    /**
+     * Returns the keyword the token spells, or {@code null} if it is not a
+     * keyword. Interned tokens are checked by symbol alone.
+     */
+    public Keyword getKeyword(int i) {
+        int symbol = getSymbol(i);
+        if (symbol >= 0) {
+            return Keyword.of(symbol);
+        } else if (types[i] != Token.Type.IDENTIFIER.ordinal()) {
+            return null;
+        }
+        return Keyword.of(source, starts[i], starts[i] + lengths[i]);
+    }
+
+    /**
+     * Returns the literal of the token, which is the interned name for an
+     * interned token and otherwise copied out of the source.
+     */
+    public String getLiteral(int i) {
+        int start = getStart(i);
+        if (symbols[i] >= 0 && table != null) {
+            return table.getName(symbols[i]);
+        }
+        return source.subSequence(start, start + lengths[i]).toString();
+    }
+
+    /**
+     * Returns true if the literal of the token is equal to the given string,
+     * without allocating.
+     */
+    public boolean matches(int i, String literal) {
+        int length = getLength(i);
+        if (length != literal.length()) {
+            return false;
+        }
+        int start = starts[i];
+        for (int j = 0; j < length; j++) {
+            if (source.charAt(start + j) != literal.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Materializes the token at the given position.
+     */
+    public Token get(int i) {
+        if (symbols[check(i)] >= 0 && table != null) {
+            return new Token(getType(i), getLiteral(i), starts[i], symbols[i]);
+        }
+        return new Token(getType(i), getLiteral(i), starts[i]);
+    }
+
+    /**
+     * Returns a read-only view of the buffer as a list of tokens, which are
+     * materialized on access.
+     */
+    public List<Token> asList() {
+        return new AbstractList<Token>() {
+
+            @Override
+            public Token get(int index) {
+                return TokenBuffer.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        }
+        return i;
+    }
+
+}
@@ -1,6 +1,7 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -9,6 +10,7 @@ import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.DoubleBinaryOperator;
@@ -414,6 +416,16 @@ public final class AnalyzerTests {
                         new Ast.Expression.Literal(BigInteger.valueOf(Long.MAX_VALUE)),
                         null
                 ),
+                Arguments.of("Long Integer Valid",
+                        // -2147483648
+                        new Ast.Expression.Literal((long) Integer.MIN_VALUE),
+                        init(new Ast.Expression.Literal((long) Integer.MIN_VALUE), ast -> ast.setType(Environment.Type.INTEGER))
+                ),
+                Arguments.of("Long Integer Invalid",
+                        // 2147483648
+                        new Ast.Expression.Literal(Integer.MAX_VALUE + 1L),
+                        null
+                ),
                 Arguments.of("Decimal Invalid",
                         new Ast.Expression.Literal(BigDecimal.valueOf(1.7976931348623158E+308)),
                         null
@@ -537,6 +549,44 @@ public final class AnalyzerTests {
         );
     }
 
+    @Test
+    public void testSlots() {
+        Ast.Source ast = TestSources.parse(String.join("\n",
+                "VAR g: Integer = 1;",
+                "FUN f(a: Integer, b: Integer): Integer DO",
+                "    LET c: Integer = a;",
+                "    WHILE a > b DO LET d: Integer = c; END",
+                "    WHILE a < b DO LET e: Integer = g; END",
+                "    RETURN c;",
+                "END",
+                "FUN main(): Integer DO RETURN f(1, 2); END"
+        ));
+        new Analyzer(TestSources.analyzerScope()).visit(ast);
+        assertSlot(ast.getGlobals().get(0).getVariable(), 0, 0);
+        Ast.Function function = ast.getFunctions().get(0);
+        List<Ast.Statement> statements = function.getStatements();
+        Ast.Statement.Declaration c = (Ast.Statement.Declaration) statements.get(0);
+        Ast.Statement.Declaration d = (Ast.Statement.Declaration) ((Ast.Statement.While) statements.get(1)).getStatements().get(0);
+        Ast.Statement.Declaration e = (Ast.Statement.Declaration) ((Ast.Statement.While) statements.get(2)).getStatements().get(0);
+        //parameters come first, and the slot of d is reused by e once its block ends
+        assertSlot(c.getVariable(), 1, 2);
+        assertSlot(d.getVariable(), 1, 3);
+        assertSlot(e.getVariable(), 1, 3);
+        assertSlot(((Ast.Expression.Access) d.getValue().get()).getVariable(), 1, 2);
+        assertSlot(((Ast.Expression.Access) e.getValue().get()).getVariable(), 0, 0);
+        Assertions.assertEquals(4, function.getFrameSize());
+        Assertions.assertEquals(0, ast.getFunctions().get(1).getFrameSize());
+        //calls resolve to the index of the function in the source
+        Ast.Expression.Function call = (Ast.Expression.Function) ((Ast.Statement.Return) ast.getFunctions().get(1).getStatements().get(0)).getValue();
+        Assertions.assertEquals(0, call.getFunction().getIndex());
+        Assertions.assertEquals(1, ast.getFunctions().get(1).getFunction().getIndex());
+    }
+
+    private static void assertSlot(Environment.Variable variable, int depth, int index) {
+        Assertions.assertEquals(depth, variable.getDepth(), variable.getName());
+        Assertions.assertEquals(index, variable.getIndex(), variable.getName());
+    }
+
     /**
      * Helper function for tests. If {@param expected} is {@code null}, analysis
      * is expected to throw a {@link RuntimeException}.
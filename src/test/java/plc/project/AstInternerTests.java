@@ -0,0 +1,114 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Tests which subtrees an {@link AstInterner} shares, that the tree stays
+ * equal to the one it was interned from, and that the {@link Analyzer} still
+ * types shared nodes.
+ */
+public final class AstInternerTests {
+
+    @Test
+    void testSharing() {
+        Ast.Source ast = new AstInterner().intern(TestSources.parse(String.join("\n",
+                "VAR x: Integer = 1 + 2;",
+                "FUN f(x: Decimal): Decimal DO RETURN x * 2.0; END",
+                "FUN g(): Integer DO LET y: Integer = 1 + 2; RETURN x * 2; END"
+        )));
+        Ast.Expression global = ast.getGlobals().get(0).getValue().get();
+        List<Ast.Statement> f = ast.getFunctions().get(0).getStatements();
+        List<Ast.Statement> g = ast.getFunctions().get(1).getStatements();
+        Assertions.assertSame(global, ((Ast.Statement.Declaration) g.get(0)).getValue().get());
+        //accesses depend on the scope, so x * 2.0 and x * 2 are not shared
+        Ast.Expression.Binary decimal = (Ast.Expression.Binary) ((Ast.Statement.Return) f.get(0)).getValue();
+        Ast.Expression.Binary integer = (Ast.Expression.Binary) ((Ast.Statement.Return) g.get(1)).getValue();
+        Assertions.assertNotSame(decimal.getLeft(), integer.getLeft());
+        Assertions.assertSame(((Ast.Expression.Binary) global).getRight(), integer.getRight());
+
+        new Analyzer(TestSources.analyzerScope()).visit(ast);
+        Assertions.assertEquals(Environment.Type.INTEGER, global.getType());
+        Assertions.assertEquals(Environment.Type.DECIMAL, decimal.getType());
+        Assertions.assertEquals(Environment.Type.INTEGER, integer.getType());
+    }
+
+    @Test
+    void testStructure() {
+        Ast.Source ast = new AstInterner().intern(TestSources.parse(String.join("\n",
+                "LIST a: Integer = [1, 2];",
+                "LIST b: Integer = [1, 2];",
+                "LIST c: Integer = [2, 1];",
+                "VAR d: Integer = (1 + 2);",
+                "VAR e: Integer = 1 + 2;",
+                "VAR f: Integer = 1 - 2;"
+        )));
+        Ast.Expression[] values = new Ast.Expression[ast.getGlobals().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ast.getGlobals().get(i).getValue().get();
+        }
+        Assertions.assertSame(values[0], values[1]);
+        Assertions.assertNotSame(values[0], values[2]);
+        //a group is a node of its own, and operators are part of the key
+        Assertions.assertNotSame(values[3], values[4]);
+        Assertions.assertSame(((Ast.Expression.Group) values[3]).getExpression(), values[4]);
+        Assertions.assertNotSame(values[4], values[5]);
+        Assertions.assertSame(((Ast.Expression.Binary) values[4]).getLeft(), ((Ast.Expression.PlcList) values[0]).getValues().get(0));
+    }
+
+    @Test
+    void testLiteralKinds() {
+        AstInterner interner = new AstInterner();
+        List<Ast.Expression> values = values(interner, "1, 1, 1.0, 'c', \"c\", TRUE, TRUE, NIL, NIL");
+        Assertions.assertSame(values.get(0), values.get(1));
+        //literals are only shared with literals of the same type
+        Assertions.assertNotSame(values.get(0), values.get(2));
+        Assertions.assertNotSame(values.get(3), values.get(4));
+        Assertions.assertSame(values.get(5), values.get(6));
+        Assertions.assertSame(values.get(7), values.get(8));
+        Assertions.assertEquals(6, interner.size());
+    }
+
+    @Test
+    void testCalls() {
+        List<Ast.Expression> values = values(new AstInterner(), "f(1) + 2, f(1) + 2");
+        Ast.Expression.Binary first = (Ast.Expression.Binary) values.get(0);
+        Ast.Expression.Binary second = (Ast.Expression.Binary) values.get(1);
+        //calls resolve in their scope, so they are copied along with the
+        //expressions around them, but their operands are still shared
+        Assertions.assertNotSame(first, second);
+        Assertions.assertNotSame(first.getLeft(), second.getLeft());
+        Assertions.assertSame(first.getRight(), second.getRight());
+        Assertions.assertSame(((Ast.Expression.Function) first.getLeft()).getArguments().get(0), ((Ast.Expression.Function) second.getLeft()).getArguments().get(0));
+    }
+
+    @Test
+    void testSources() {
+        AstInterner interner = new AstInterner();
+        Ast.Source first = TestSources.parse("VAR total: Integer = 10 * 10; FUN main(): Integer DO RETURN total; END");
+        Ast.Source second = TestSources.parse("VAL total: Integer = 10 * 10;");
+        Ast.Source firstInterned = interner.intern(first);
+        Ast.Source secondInterned = interner.intern(second);
+        Assertions.assertEquals(first, firstInterned);
+        Assertions.assertEquals(second, secondInterned);
+        //trees interned by the same interner share nodes and names
+        Assertions.assertSame(firstInterned.getGlobals().get(0).getValue().get(), secondInterned.getGlobals().get(0).getValue().get());
+        Assertions.assertSame(firstInterned.getGlobals().get(0).getName(), secondInterned.getGlobals().get(0).getName());
+        Assertions.assertSame(firstInterned.getGlobals().get(0).getTypeName(), secondInterned.getGlobals().get(0).getTypeName());
+        //interning an interned tree returns the same shared nodes
+        Ast.Source again = interner.intern(firstInterned);
+        Assertions.assertSame(firstInterned.getGlobals().get(0).getValue().get(), again.getGlobals().get(0).getValue().get());
+    }
+
+    /**
+     * Interns the arguments of a call to {@code f} with the given arguments.
+     */
+    private static List<Ast.Expression> values(AstInterner interner, String arguments) {
+        Ast.Source ast = interner.intern(TestSources.parse("FUN main() DO f(" + arguments + "); END"));
+        Ast.Statement.Expression statement = (Ast.Statement.Expression) ast.getFunctions().get(0).getStatements().get(0);
+        return ((Ast.Expression.Function) statement.getExpression()).getArguments();
+    }
+
+}
@@ -0,0 +1,80 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests that a {@link FlatAst} decodes to the tree it was encoded from and
+ * that its cursor visits the nodes in prefix order.
+ */
+public final class FlatAstTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testRoundTrip(String test, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(ast, FlatAst.of(ast).toAst());
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Globals", "LIST l: Integer = [1, 2]; VAR x: Decimal; VAL s: String = \"s\";"),
+                Arguments.of("Statements", String.join("\n",
+                        "FUN f(a: Integer, b: String): Integer DO",
+                        "    LET y: Integer = a * 2;",
+                        "    LET z = NIL;",
+                        "    IF y > 10 DO y = y - 1; ELSE WHILE y < 10 DO y = y + 1; END END",
+                        "    SWITCH a CASE 1: x[1] = 'c'; DEFAULT print(\"default\", TRUE); END",
+                        "    RETURN (y + 1.5);",
+                        "END",
+                        "FUN main() DO END"
+                ))
+        );
+    }
+
+    @Test
+    void testCursor() {
+        Ast.Source ast = new Parser(new Lexer("VAR x: Integer = 1; FUN main(): Integer DO RETURN x + 1; END").lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        List<Integer> kinds = new ArrayList<>();
+        FlatAst.Cursor cursor = flat.cursor();
+        kinds.add(cursor.getKind());
+        walk: while (true) {
+            if (!cursor.firstChild()) {
+                while (!cursor.nextSibling()) {
+                    if (!cursor.parent()) {
+                        break walk;
+                    }
+                }
+            }
+            kinds.add(cursor.getKind());
+            Assertions.assertEquals(kinds.size() - 1, cursor.getNode());
+        }
+        Assertions.assertEquals(Arrays.asList(FlatAst.SOURCE, FlatAst.MUTABLE_GLOBAL, FlatAst.LITERAL,
+                FlatAst.FUNCTION, FlatAst.BLOCK, FlatAst.RETURN, FlatAst.BINARY, FlatAst.ACCESS, FlatAst.NONE, FlatAst.LITERAL), kinds);
+        Assertions.assertEquals(flat.size(), kinds.size());
+        Assertions.assertEquals("+", flat.getName(6));
+        Assertions.assertEquals("Integer", flat.getTypeName(3));
+        Assertions.assertEquals(1L, flat.getLiteral(9));
+    }
+
+    @Test
+    void testLiteralPool() {
+        Ast.Source ast = new Parser(new Lexer("FUN main() DO f(1, 1, 1.0, 1.00); END").lex()).parseSource();
+        FlatAst flat = FlatAst.of(ast);
+        //equal values share an entry, but 1.0 and 1.00 are different decimals
+        Assertions.assertSame(flat.getLiteral(5), flat.getLiteral(6));
+        Assertions.assertNotEquals(flat.getLiteral(7), flat.getLiteral(8));
+        Assertions.assertEquals(ast, flat.toAst());
+    }
+
+}
@@ -378,10 +378,76 @@ final class InterpreterTests {
                                 new Ast.Expression.Literal(new BigDecimal("3.4"))
                         ),
                         new BigDecimal("0.4")
+                ),
+                // 1 + 10
+                Arguments.of("Long Addition",
+                        new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal(1L),
+                                new Ast.Expression.Literal(10L)
+                        ),
+                        11L
+                ),
+                // 9223372036854775807 + 1
+                Arguments.of("Long Overflow",
+                        new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal(Long.MAX_VALUE),
+                                new Ast.Expression.Literal(1L)
+                        ),
+                        new BigInteger("9223372036854775808")
+                ),
+                // 2 ^ 64
+                Arguments.of("Long Exponent Overflow",
+                        new Ast.Expression.Binary("^",
+                                new Ast.Expression.Literal(2L),
+                                new Ast.Expression.Literal(64L)
+                        ),
+                        BigInteger.ONE.shiftLeft(64)
+                ),
+                // 10 == 10
+                Arguments.of("Long Equal BigInteger",
+                        new Ast.Expression.Binary("==",
+                                new Ast.Expression.Literal(10L),
+                                new Ast.Expression.Literal(BigInteger.TEN)
+                        ),
+                        true
+                ),
+                // 1 < 10
+                Arguments.of("Long Less Than BigInteger",
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Literal(1L),
+                                new Ast.Expression.Literal(BigInteger.TEN)
+                        ),
+                        true
                 )
         );
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testBinaryRightOperand(String test, Ast.Expression left, String operator, Object right, Object expected, int calls) {
+        //the right operand is a call, so the count shows how often it was evaluated
+        int[] count = {0};
+        Scope scope = new Scope(null);
+        scope.defineFunction("right", 0, args -> {
+            count[0]++;
+            return Environment.create(right);
+        });
+        test(new Ast.Expression.Binary(operator, left, new Ast.Expression.Function("right", Arrays.asList())), expected, scope);
+        Assertions.assertEquals(calls, count[0]);
+    }
+
+    private static Stream<Arguments> testBinaryRightOperand() {
+        return Stream.of(
+                Arguments.of("Concatenation", new Ast.Expression.Literal("a"), "+", "b", "ab", 1),
+                Arguments.of("Decimal", new Ast.Expression.Literal(new BigDecimal("1.0")), "+", new BigDecimal("2.0"), new BigDecimal("3.0"), 1),
+                Arguments.of("And", new Ast.Expression.Literal(true), "&&", true, true, 1),
+                Arguments.of("And (Short Circuit)", new Ast.Expression.Literal(false), "&&", true, false, 0),
+                Arguments.of("Or", new Ast.Expression.Literal(false), "||", false, false, 1),
+                Arguments.of("Less Than", new Ast.Expression.Literal(BigInteger.ONE), "<", BigInteger.TEN, true, 1),
+                Arguments.of("Equal", new Ast.Expression.Literal(BigInteger.ONE), "==", BigInteger.ONE, true, 1)
+        );
+    }
+
     @ParameterizedTest
     @MethodSource
     void testAccessExpression(String test, Ast ast, Object expected) {
@@ -447,6 +513,84 @@ final class InterpreterTests {
         test(ast, expected, new Scope(null));
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testAnalyzedSource(String test, String input, Object expected) {
+        test(TestSources.analyze(input), expected, new Scope(null));
+    }
+
+    private static Stream<Arguments> testAnalyzedSource() {
+        return Stream.of(
+                Arguments.of("Locals", "FUN main(): Integer DO LET x: Integer = 1; LET y: Integer = x + 1; x = x + y; RETURN x * y; END", 6L),
+                Arguments.of("Globals", "VAR x: Integer = 1; VAL y: Integer = x + 1; FUN main(): Integer DO x = x + y; RETURN x; END", 3L),
+                Arguments.of("Recursion", "FUN f(n: Integer): Integer DO LET m: Integer = n - 1; IF n > 1 DO RETURN n * f(m); END RETURN 1; END FUN main(): Integer DO RETURN f(5); END", 120L),
+                Arguments.of("Loop", "FUN main(): Integer DO LET i: Integer = 1; LET sum: Integer = 1; WHILE i < 5 DO LET j: Integer = i * 2; sum = sum + j; i = i + 1; END RETURN sum; END", 21L),
+                //slots of finished blocks are reused, but are always set before they are read
+                Arguments.of("Reused Slots", "FUN main(): Integer DO LET i: Integer = 1; WHILE i < 3 DO LET a: Integer = i; i = i + a; END WHILE i < 9 DO LET b: Integer = i * 2; i = i + b; END RETURN i; END", 12L),
+                Arguments.of("Switch", "FUN main(): Integer DO LET x: Integer = 2; SWITCH x CASE 2: x = x * 10; DEFAULT x = 30; END RETURN x; END", 20L),
+                //the condition is evaluated once, so f increments n once
+                Arguments.of("If Condition", "VAR n: Integer = 1; FUN f(): Boolean DO n = n + 1; RETURN TRUE; END FUN main(): Integer DO IF f() DO n = n * 10; END RETURN n; END", 20L),
+                Arguments.of("Overloads", "FUN f(a: Integer): Integer DO RETURN a; END FUN f(a: Integer, b: Integer): Integer DO RETURN a + b; END FUN main(): Integer DO RETURN f(1) * 10 + f(2, 3); END", 15L),
+                //variables are resolved lexically, so f reads the global x and not the local x of main
+                Arguments.of("Lexical", "VAR x: Integer = 1; FUN f(): Integer DO RETURN x; END FUN main(): Integer DO LET x: Integer = 2; RETURN f() + x; END", 3L)
+        );
+    }
+
+    @Test
+    void testAnalyzedGlobalScope() {
+        Ast.Source ast = TestSources.analyze("VAR x: Integer = 1; FUN main(): Integer DO x = x + 1; RETURN x; END");
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(2L, interpreter.visit(ast).getValue());
+        //slotted globals are still variables of the scope
+        Assertions.assertEquals(2L, interpreter.getScope().lookupVariable("x").getValue().getValue());
+        interpreter.getScope().lookupVariable("x").setValue(Environment.create(5L));
+        Assertions.assertEquals(6L, interpreter.getScope().lookupFunction("main", 0).invoke(Arrays.asList()).getValue());
+    }
+
+    @Test
+    void testPartiallyAnalyzedSource() {
+        Ast.Source ast = TestSources.parse("FUN main(): Integer DO LET y: Integer = 1; LET z: Boolean = 1; RETURN y; END");
+        Assertions.assertThrows(RuntimeException.class, () -> new Analyzer(TestSources.analyzerScope()).visit(ast));
+        //y has a slot but main has no frame, so y is defined in the scope
+        test(ast, 1L, new Scope(null));
+    }
+
+    @Test
+    void testCallSiteCache() {
+        Ast.Source ast = TestSources.parse("FUN main() DO LET i = 1; WHILE i < 6 DO i = f(i); END RETURN i; END");
+        Scope scope = new Scope(null);
+        scope.defineFunction("f", 1, args -> Environment.create((Long) args.get(0).getValue() + 1));
+        Interpreter interpreter = new Interpreter(scope);
+        Assertions.assertEquals(6L, interpreter.visit(ast).getValue());
+        Assertions.assertEquals(4, interpreter.getCacheHits());
+        Assertions.assertEquals(1, interpreter.getCacheMisses());
+        //defining a function which shadows f invalidates the cache
+        interpreter.getScope().defineFunction("f", 1, args -> Environment.create((Long) args.get(0).getValue() + 2));
+        Assertions.assertEquals(7L, interpreter.getScope().lookupFunction("main", 0).invoke(Arrays.asList()).getValue());
+        Assertions.assertEquals(6, interpreter.getCacheHits());
+        Assertions.assertEquals(2, interpreter.getCacheMisses());
+        //a function defined in another scope chain does not
+        new Scope(null).defineFunction("f", 1, args -> Environment.NIL);
+        Assertions.assertEquals(7L, interpreter.getScope().lookupFunction("main", 0).invoke(Arrays.asList()).getValue());
+        Assertions.assertEquals(9, interpreter.getCacheHits());
+        Assertions.assertEquals(2, interpreter.getCacheMisses());
+        //another interpreter resolves the call in its own scope
+        Interpreter other = new Interpreter(scope);
+        Assertions.assertEquals(6L, other.visit(ast).getValue());
+        Assertions.assertEquals(4, other.getCacheHits());
+        Assertions.assertEquals(1, other.getCacheMisses());
+    }
+
+    @Test
+    void testCallSiteCacheAnalyzed() {
+        Ast.Source ast = TestSources.analyze("FUN f(n: Integer): Integer DO RETURN n + 1; END FUN main(): Integer DO RETURN f(f(1)); END");
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(3L, interpreter.visit(ast).getValue());
+        //calls in the function table never reach the cache
+        Assertions.assertEquals(0, interpreter.getCacheHits());
+        Assertions.assertEquals(0, interpreter.getCacheMisses());
+    }
+
     private static Scope test(Ast ast, Object expected, Scope scope) {
         Interpreter interpreter = new Interpreter(scope);
         if (expected != null) {
@@ -6,8 +6,16 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class LexerTests {
@@ -138,6 +146,194 @@ public class LexerTests {
         Assertions.assertEquals(13, exception.getIndex());
     }
 
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testDfaLexer(String test, String input) {
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> new DfaLexer(input).lex()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testTokenBuffer(String test, String input) {
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> new DfaLexer(input).lexBuffer().asList()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testStreamingLexer(String test, String input) {
+        //a tiny buffer forces tokens to span refills
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> {
+            List<Token> tokens = new ArrayList<>();
+            new StreamingLexer(new StringReader(input), 2).forEachRemaining(tokens::add);
+            return tokens;
+        }));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testByteLexer(String test, String input) {
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> new ByteLexer(input.getBytes(StandardCharsets.UTF_8)).lex()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testEquivalence")
+    void testParallelLexer(String test, String input) {
+        //single character chunks split at every line terminator
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> new ParallelLexer(input, ForkJoinPool.commonPool(), 1).lex()));
+    }
+
+    @Test
+    void testTokenView() {
+        Token token = new Lexer("LET name = 1;").lex().get(1);
+        Assertions.assertEquals(4, token.getLength());
+        Assertions.assertTrue(token.matches("name"));
+        Assertions.assertFalse(token.matches("names"));
+        Assertions.assertEquals(new Token(Token.Type.IDENTIFIER, "name", 4), token);
+        Assertions.assertSame(token.getLiteral(), token.getLiteral());
+        Assertions.assertEquals(Keyword.LET, Token.view(Token.Type.IDENTIFIER, "LET", 0, 3).getKeyword());
+    }
+
+    @Test
+    void testSymbolTable() {
+        List<Token> tokens = new DfaLexer("LET name = name + other; END").lex();
+        Assertions.assertEquals(Keyword.LET, tokens.get(0).getKeyword());
+        Assertions.assertEquals(Keyword.LET.ordinal(), tokens.get(0).getSymbol());
+        Assertions.assertEquals(tokens.get(1).getSymbol(), tokens.get(3).getSymbol());
+        Assertions.assertSame(tokens.get(1).getLiteral(), tokens.get(3).getLiteral());
+        Assertions.assertNotEquals(tokens.get(1).getSymbol(), tokens.get(5).getSymbol());
+        Assertions.assertNull(tokens.get(1).getKeyword());
+        Assertions.assertEquals(Keyword.END, tokens.get(7).getKeyword());
+        Assertions.assertEquals(Keyword.END, new Token(Token.Type.IDENTIFIER, "END", 0).getKeyword());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testByteLexerMalformed(String test, int[] sequence) {
+        //the sequence is in a string literal followed by an identifier
+        byte[] bytes = new byte[sequence.length + 4];
+        bytes[0] = '"';
+        for (int i = 0; i < sequence.length; i++) {
+            bytes[i + 1] = (byte) sequence[i];
+        }
+        bytes[sequence.length + 1] = '"';
+        bytes[sequence.length + 2] = ' ';
+        bytes[sequence.length + 3] = 'x';
+        String input = new String(bytes, StandardCharsets.UTF_8);
+        Assertions.assertEquals(lex(() -> new Lexer(input).lex()), lex(() -> new ByteLexer(bytes).lex()));
+    }
+
+    private static Stream<Arguments> testByteLexerMalformed() {
+        return Stream.of(
+                Arguments.of("Invalid Lead", new int[] {0xF8, 0x80, 0x80}),
+                Arguments.of("Continuation", new int[] {0x80, 0xBF}),
+                Arguments.of("Overlong", new int[] {0xC0, 0xAF, 0xE0, 0x80, 0xAF}),
+                Arguments.of("Surrogate", new int[] {0xED, 0xA0, 0x80}),
+                Arguments.of("Out Of Range", new int[] {0xF4, 0x90, 0x80, 0x80}),
+                Arguments.of("Truncated", new int[] {0xE2, 0x82, 0xF0, 0x9F, 0x98})
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testIncrementalLexer(String test, String input, int offset, int removed, String inserted) {
+        String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+        IncrementalLexer lexer = new IncrementalLexer(input);
+        Assertions.assertEquals(lex(() -> new Lexer(edited).lex()), lex(() -> new ArrayList<>(lexer.edit(offset, removed, inserted))));
+        Assertions.assertEquals(edited, lexer.getSource().toString());
+    }
+
+    private static Stream<Arguments> testIncrementalLexer() {
+        String source = "VAR x: Integer = 1;\nFUN main(): Integer DO\n    RETURN x + 0.5;\nEND";
+        return Stream.of(
+                Arguments.of("Extend Identifier", source, 5, 0, "yz"),
+                Arguments.of("Join Tokens", source, 23, 1, ""),
+                Arguments.of("Split Token", source, 27, 0, " "),
+                Arguments.of("Shift Tokens", source, 0, 0, "VAL y: Integer = 2;\n"),
+                Arguments.of("Change Type", source, 17, 1, "1.25"),
+                Arguments.of("Open String", source, 17, 1, "\"one"),
+                Arguments.of("Delete All", source, 0, source.length(), "")
+        );
+    }
+
+    @Test
+    void testIncrementalLexerRecovery() {
+        IncrementalLexer lexer = new IncrementalLexer("LET s = \"a\";\nprint(s);");
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> lexer.edit(10, 1, ""));
+        Assertions.assertEquals(11, exception.getIndex());
+        Assertions.assertEquals(new Lexer("LET s = \"ab\";\nprint(s);").lex(), lexer.edit(10, 0, "b\""));
+    }
+
+    @Test
+    void testIncrementalLexerSymbols() {
+        IncrementalLexer lexer = new IncrementalLexer("LET x0 = 1;\nprint(x0);");
+        for (int i = 1; i < 1000; i++) {
+            String previous = "x" + (i - 1);
+            lexer.edit(16 + previous.length(), previous.length(), "x" + i);
+            lexer.edit(4, previous.length(), "x" + i);
+        }
+        List<Token> tokens = lexer.getTokens();
+        Assertions.assertEquals("x999", tokens.get(1).getLiteral());
+        Assertions.assertEquals(tokens.get(1).getSymbol(), tokens.get(7).getSymbol());
+        Assertions.assertEquals(Keyword.LET.ordinal(), tokens.get(0).getSymbol());
+        Assertions.assertTrue(tokens.get(1).getSymbol() < Keyword.values().length + 100);
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testMappedSource(String test, String input) throws IOException {
+        Path path = Files.createTempFile("source", ".plc");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+            CharSequence source = MappedSource.map(path);
+            Assertions.assertEquals(input, source.toString());
+            Assertions.assertEquals(new Lexer(input).lex(), new Lexer(source).lex());
+            Assertions.assertEquals(new Lexer(input).lex(), new DfaLexer(source).lex());
+        } finally {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private static Stream<Arguments> testMappedSource() {
+        return Stream.of(
+                Arguments.of("ASCII", "VAR x: Integer = 1;\nFUN main(): Integer DO\n    RETURN x;\nEND"),
+                Arguments.of("UTF-8", "LET s = \"caf\u00e9 \u2603\";\nprint(s);")
+        );
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Example", "VAR x: Integer = -1;\nFUN main(): Integer DO\n    RETURN x + 0.5;\nEND"),
+                Arguments.of("Operators", "a||b && c != d == e <= f"),
+                Arguments.of("Escapes", "'\\n' \"a\\tb\\\"c\" '\\''"),
+                Arguments.of("Negative Decimal", "-.5 -0.25 - 1"),
+                Arguments.of("Identifiers", "@at snake_case kebab-case x2"),
+                Arguments.of("Non-ASCII", "\"caf\u00e9\" \u00e9 \u2603"),
+                Arguments.of("Leading Zero", "x = 01;"),
+                Arguments.of("Trailing Decimal", "1.;"),
+                Arguments.of("Invalid Escape", "\"\\q\""),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Unterminated Character", "'ab'"),
+                Arguments.of("Newline In String", "\"a\nb\""),
+                Arguments.of("Multiple Lines", "LET x = 1;\r\nLET y = x;\n\nprint(y);\r"),
+                Arguments.of("Error On Later Line", "a\nb\n'c\n01"),
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("Line Separator", "a \u2028 b"),
+                Arguments.of("Surrogate Pair", "x \ud83d\ude00 '\ud83d\ude00'")
+        );
+    }
+
+    /**
+     * Lexes the input, returning either the tokens or the message and index of
+     * the {@link ParseException} so different lexers can be compared.
+     */
+    static Object lex(Supplier<List<Token>> lexer) {
+        try {
+            return lexer.get();
+        } catch (ParseException e) {
+            return e.getMessage() + "@" + e.getIndex();
+        }
+    }
+
     /**
      * Tests that lexing the input through {@link Lexer#lexToken()} produces a
      * single token with the expected type and literal matching the input.
@@ -79,7 +79,15 @@ final class ParserExpressionTests {
                 ),
                 Arguments.of("Integer Literal",
                         Arrays.asList(new Token(Token.Type.INTEGER, "1", 0)),
-                        new Ast.Expression.Literal(new BigInteger("1"))
+                        new Ast.Expression.Literal(1L)
+                ),
+                Arguments.of("Long Integer Literal",
+                        Arrays.asList(new Token(Token.Type.INTEGER, "-9223372036854775808", 0)),
+                        new Ast.Expression.Literal(Long.MIN_VALUE)
+                ),
+                Arguments.of("Big Integer Literal",
+                        Arrays.asList(new Token(Token.Type.INTEGER, "9223372036854775808", 0)),
+                        new Ast.Expression.Literal(new BigInteger("9223372036854775808"))
                 ),
                 Arguments.of("Decimal Literal",
                         Arrays.asList(new Token(Token.Type.DECIMAL, "2.0", 0)),
@@ -189,6 +197,62 @@ final class ParserExpressionTests {
                                 new Ast.Expression.Access(Optional.empty(), "expr1"),
                                 new Ast.Expression.Access(Optional.empty(), "expr2")
                         )
+                ),
+                Arguments.of("Binary Precedence",
+                        Arrays.asList(
+                                //a || b + c * d
+                                new Token(Token.Type.IDENTIFIER, "a", 0),
+                                new Token(Token.Type.OPERATOR, "||", 2),
+                                new Token(Token.Type.IDENTIFIER, "b", 5),
+                                new Token(Token.Type.OPERATOR, "+", 7),
+                                new Token(Token.Type.IDENTIFIER, "c", 9),
+                                new Token(Token.Type.OPERATOR, "*", 11),
+                                new Token(Token.Type.IDENTIFIER, "d", 13)
+                        ),
+                        new Ast.Expression.Binary("||",
+                                new Ast.Expression.Access(Optional.empty(), "a"),
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.empty(), "b"),
+                                        new Ast.Expression.Binary("*",
+                                                new Ast.Expression.Access(Optional.empty(), "c"),
+                                                new Ast.Expression.Access(Optional.empty(), "d")
+                                        )
+                                )
+                        )
+                ),
+                Arguments.of("Left Associative Subtraction",
+                        Arrays.asList(
+                                //a - b - c
+                                new Token(Token.Type.IDENTIFIER, "a", 0),
+                                new Token(Token.Type.OPERATOR, "-", 2),
+                                new Token(Token.Type.IDENTIFIER, "b", 4),
+                                new Token(Token.Type.OPERATOR, "-", 6),
+                                new Token(Token.Type.IDENTIFIER, "c", 8)
+                        ),
+                        new Ast.Expression.Binary("-",
+                                new Ast.Expression.Binary("-",
+                                        new Ast.Expression.Access(Optional.empty(), "a"),
+                                        new Ast.Expression.Access(Optional.empty(), "b")
+                                ),
+                                new Ast.Expression.Access(Optional.empty(), "c")
+                        )
+                ),
+                Arguments.of("Right Associative Comparison",
+                        Arrays.asList(
+                                //a < b == c
+                                new Token(Token.Type.IDENTIFIER, "a", 0),
+                                new Token(Token.Type.OPERATOR, "<", 2),
+                                new Token(Token.Type.IDENTIFIER, "b", 4),
+                                new Token(Token.Type.OPERATOR, "==", 6),
+                                new Token(Token.Type.IDENTIFIER, "c", 9)
+                        ),
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Access(Optional.empty(), "a"),
+                                new Ast.Expression.Binary("==",
+                                        new Ast.Expression.Access(Optional.empty(), "b"),
+                                        new Ast.Expression.Access(Optional.empty(), "c")
+                                )
+                        )
                 )
         );
     }
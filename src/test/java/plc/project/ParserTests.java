@@ -6,11 +6,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.StringReader;
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -259,7 +263,7 @@ final class ParserTests {
                 ),
                 Arguments.of("Integer Literal",
                         Arrays.asList(new Token(Token.Type.INTEGER, "1", 0)),
-                        new Ast.Expression.Literal(new BigInteger("1"))
+                        new Ast.Expression.Literal(1L)
                 ),
                 Arguments.of("Decimal Literal",
                         Arrays.asList(new Token(Token.Type.DECIMAL, "2.0", 0)),
@@ -488,12 +492,12 @@ final class ParserTests {
                 new Token(Token.Type.IDENTIFIER, "END", 129)
         );
         Ast.Source expected = new Ast.Source(
-                Arrays.asList(new Ast.Global("first", "Integer", true, Optional.of(new Ast.Expression.Literal(BigInteger.ONE)))),
+                Arrays.asList(new Ast.Global("first", "Integer", true, Optional.of(new Ast.Expression.Literal(1L)))),
                 Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
                         new Ast.Statement.While(
                                 new Ast.Expression.Binary("!=",
                                         new Ast.Expression.Access(Optional.empty(), "first"),
-                                        new Ast.Expression.Literal(BigInteger.TEN)
+                                        new Ast.Expression.Literal(10L)
                                 ),
                                 Arrays.asList(
                                         new Ast.Statement.Expression(
@@ -505,7 +509,7 @@ final class ParserTests {
                                                 new Ast.Expression.Access(Optional.empty(), "first"),
                                                 new Ast.Expression.Binary("+",
                                                         new Ast.Expression.Access(Optional.empty(), "first"),
-                                                        new Ast.Expression.Literal(BigInteger.ONE)
+                                                        new Ast.Expression.Literal(1L)
                                                 )
                                         )
                                 )
@@ -515,6 +519,221 @@ final class ParserTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @Test
+    void testTokenBuffer() {
+        String input = String.join("\n",
+                "VAR first: Integer = 1;",
+                "FUN main(): Integer DO",
+                "    WHILE first != 10 DO",
+                "        print(first);",
+                "        first = first + 1;",
+                "    END",
+                "END"
+        );
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new DfaLexer(input).lexBuffer()).parseSource());
+    }
+
+    @Test
+    void testIterativeMode() {
+        String input = String.join("\n",
+                "VAR first: Integer = 1;",
+                "FUN main(): Integer DO",
+                "    LET x = (f(first, g[(1 + 2) * 3]) < 4 == TRUE) || a && b;",
+                "    IF x DO",
+                "        WHILE first != 10 DO",
+                "            first = first - 1 - 2;",
+                "        END",
+                "    ELSE",
+                "        SWITCH first",
+                "            CASE 1:",
+                "                IF y DO z(); END",
+                "            DEFAULT",
+                "                RETURN f();",
+                "        END",
+                "    END",
+                "END"
+        );
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lex(), Parser.Mode.ITERATIVE).parseSource());
+        Assertions.assertEquals(expected, new Parser(new DfaLexer(input).lexBuffer(), Parser.Mode.ITERATIVE).parseSource());
+    }
+
+    @Test
+    void testIterativeModeDepth() {
+        int depth = 100_000;
+        StringBuilder expression = new StringBuilder();
+        StringBuilder block = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            expression.append("(f(");
+            block.append("IF x DO ");
+        }
+        expression.append("1");
+        for (int i = 0; i < depth; i++) {
+            expression.append(") + 1)");
+            block.append("END ");
+        }
+        //walk the results iteratively, since equals would overflow the stack
+        Ast.Expression ast = new Parser(new DfaLexer(expression).lexBuffer(), Parser.Mode.ITERATIVE).parseExpression();
+        for (int i = 0; i < depth; i++) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) ((Ast.Expression.Group) ast).getExpression();
+            Assertions.assertEquals(new Ast.Expression.Literal(1L), binary.getRight());
+            ast = ((Ast.Expression.Function) binary.getLeft()).getArguments().get(0);
+        }
+        Assertions.assertEquals(new Ast.Expression.Literal(1L), ast);
+        Ast.Statement statement = new Parser(new DfaLexer(block).lexBuffer(), Parser.Mode.ITERATIVE).parseStatement();
+        for (int i = 1; i < depth; i++) {
+            statement = ((Ast.Statement.If) statement).getThenStatements().get(0);
+        }
+        Assertions.assertEquals(Collections.emptyList(), ((Ast.Statement.If) statement).getThenStatements());
+    }
+
+    @Test
+    void testIteratorTokens() {
+        String input = String.join("\n",
+                "VAR first: Integer = 1;",
+                "FUN main(): Integer DO",
+                "    WHILE first != 10 DO",
+                "        print(first);",
+                "        first = first + 1;",
+                "    END",
+                "END"
+        );
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lex().iterator()).parseSource());
+        Assertions.assertEquals(expected, new Parser(new StreamingLexer(new StringReader(input), 4)).parseSource());
+    }
+
+    @Test
+    void testIteratorLookahead() {
+        //the iterator is read at most one token past the statement
+        Iterator<Token> tokens = new Lexer("x = 1; y; z;").lex().iterator();
+        int[] read = {0};
+        Parser parser = new Parser(new Iterator<Token>() {
+            @Override
+            public boolean hasNext() {
+                return tokens.hasNext();
+            }
+
+            @Override
+            public Token next() {
+                read[0]++;
+                return tokens.next();
+            }
+        });
+        parser.parseStatement();
+        Assertions.assertTrue(read[0] <= 5, "Read " + read[0] + " tokens");
+        Assertions.assertEquals(new Ast.Statement.Expression(new Ast.Expression.Access(Optional.empty(), "y")), parser.parseStatement());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testParallelParser(String test, String input) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Object expected;
+            try {
+                expected = new Parser(new Lexer(input).lex()).parseSource();
+            } catch (ParseException e) {
+                expected = e.getMessage() + "@" + e.getIndex();
+            }
+            Object actual;
+            try {
+                actual = new ParallelParser(new Lexer(input).lex(), pool, 1).parseSource();
+            } catch (ParseException e) {
+                actual = e.getMessage() + "@" + e.getIndex();
+            }
+            Assertions.assertEquals(expected, actual);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Stream<Arguments> testParallelParser() {
+        StringBuilder functions = new StringBuilder("VAR first: Integer = 1;\n");
+        for (int i = 0; i < 50; i++) {
+            functions.append("FUN f").append(i).append("(x: Integer): Integer DO\n")
+                    .append("    IF x > ").append(i + 1).append(" DO RETURN f(x - 1); ELSE RETURN x; END\n")
+                    .append("END\n");
+        }
+        return Stream.of(
+                Arguments.of("Functions", functions.toString()),
+                Arguments.of("FUN Identifier", "FUN f() DO x = 1; FUN; FUN = 2; END FUN g() DO END"),
+                Arguments.of("Missing END", "FUN f() DO x = 1; FUN g() DO END FUN h() DO ) END"),
+                Arguments.of("Earliest Error", "FUN f() DO x = ; END FUN g() DO ) END"),
+                Arguments.of("Global After Function", "FUN f() DO END VAR x: Integer; FUN g() DO ) END")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testIncrementalParser(String test, String input, int offset, int removed, String inserted) {
+        String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+        IncrementalParser parser = new IncrementalParser(input);
+        Ast.Source before = parser.getSource();
+        Ast.Source after = parser.edit(offset, removed, inserted);
+        Assertions.assertEquals(new Parser(new Lexer(edited).lex()).parseSource(), after);
+        Assertions.assertEquals(edited, parser.getText().toString());
+        //the last function is never edited, so it is reused as-is
+        Assertions.assertSame(before.getFunctions().get(before.getFunctions().size() - 1),
+                after.getFunctions().get(after.getFunctions().size() - 1));
+    }
+
+    private static Stream<Arguments> testIncrementalParser() {
+        String source = String.join("\n",
+                "VAR x: Integer = 1;",
+                "FUN f(): Integer DO",
+                "    RETURN x;",
+                "END",
+                "FUN main(): Integer DO",
+                "    RETURN f();",
+                "END"
+        );
+        return Stream.of(
+                Arguments.of("Edit Global", source, 17, 1, "2"),
+                Arguments.of("Edit Function", source, 51, 1, "x + 1"),
+                Arguments.of("Extend Function", source, 54, 0, "    x = 2;\n"),
+                Arguments.of("Insert Function", source, 58, 0, "FUN g() DO END\n"),
+                Arguments.of("Remove Function", source, 20, 38, "")
+        );
+    }
+
+    @Test
+    void testIncrementalParserRecovery() {
+        IncrementalParser parser = new IncrementalParser("FUN f() DO x = 1; END\nFUN g() DO y = 2; END");
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> parser.edit(15, 1, ""));
+        Assertions.assertEquals(15, exception.getIndex());
+        String fixed = "FUN f() DO x = 3; END\nFUN g() DO y = 2; END";
+        Assertions.assertEquals(new Parser(new Lexer(fixed).lex()).parseSource(), parser.edit(15, 0, "3"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testErrorRecovery(String test, String input, List<Integer> indices, String partial) {
+        Ast.Source expected = new Parser(new Lexer(partial).lex()).parseSource();
+        for (Parser.Mode mode : Parser.Mode.values()) {
+            List<ParseException> errors = new ArrayList<>();
+            Ast.Source source = new Parser(new Lexer(input).lex(), mode).parseSource(errors);
+            List<Integer> actual = new ArrayList<>();
+            errors.forEach(error -> actual.add(error.getIndex()));
+            Assertions.assertEquals(indices, actual, mode.toString());
+            Assertions.assertEquals(expected, source, mode.toString());
+        }
+    }
+
+    private static Stream<Arguments> testErrorRecovery() {
+        return Stream.of(
+                Arguments.of("Valid", "VAR x: Integer = 1; FUN f() DO x = 2; END", Arrays.asList(), "VAR x: Integer = 1; FUN f() DO x = 2; END"),
+                Arguments.of("Statements", "FUN f() DO x = ; y = 1; END FUN g() DO RETURN 1 END", Arrays.asList(15, 48), "FUN f() DO y = 1; END FUN g() DO END"),
+                Arguments.of("Nested Block", "FUN f() DO WHILE x DO y = ; z = 1; END END", Arrays.asList(26), "FUN f() DO WHILE x DO z = 1; END END"),
+                Arguments.of("Else", "FUN f() DO IF c DO w = 1; x = ; ELSE y = 2; END END", Arrays.asList(30), "FUN f() DO IF c DO w = 1; ELSE y = 2; END END"),
+                Arguments.of("Global", "VAR x: Integer = 1 VAL y: Integer = 2; FUN f() DO END", Arrays.asList(19), "VAL y: Integer = 2; FUN f() DO END"),
+                //f is left out without also reporting its missing END
+                Arguments.of("Unwinding", "FUN f() DO IF x DO y = ; FUN g() DO END", Arrays.asList(23), "FUN g() DO END"),
+                Arguments.of("Stray Token", "FUN f() DO END ] FUN g() DO END", Arrays.asList(15), "FUN f() DO END FUN g() DO END")
+        );
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
@@ -0,0 +1,145 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Tests that {@link AstReader} reads back exactly what {@link AstWriter}
+ * wrote, both before and after analysis.
+ */
+public final class SerializationTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testRoundTrip(String test, String input) throws IOException {
+        Ast.Source parsed = TestSources.parse(input);
+        Assertions.assertEquals(parsed, roundTrip(parsed));
+        Ast.Source analyzed = TestSources.analyze(input);
+        Ast.Source read = roundTrip(analyzed);
+        Assertions.assertEquals(analyzed, read);
+        Assertions.assertSame(Environment.Type.INTEGER, read.getFunctions().get(0).getFunction().getReturnType());
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Literals", String.join("\n",
+                        "VAL big: Integer = 2147483647;",
+                        "VAR d: Decimal = 3.14159;",
+                        "VAL c: Character = '\\n';",
+                        "VAL s: String = \"caf\u00e9\";",
+                        "VAR b: Boolean = TRUE && FALSE;",
+                        "LIST l: Integer = [1, 2, 3];",
+                        "FUN main(): Integer DO RETURN 1; END"
+                )),
+                Arguments.of("Statements", String.join("\n",
+                        "VAR x: Integer = 1;",
+                        "FUN f(a: Integer, b: Decimal): Integer DO",
+                        "    LET y: Integer = a * 2;",
+                        "    IF y > 10 DO y = y - 1; ELSE WHILE y < 10 DO y = y + 1; END END",
+                        "    SWITCH a CASE 1: x = 2; DEFAULT print(\"default\"); END",
+                        "    RETURN (y + x);",
+                        "END",
+                        "FUN main(): Integer DO RETURN f(x, 1.0); END"
+                ))
+        );
+    }
+
+    @Test
+    void testSharedVariables() throws IOException {
+        Ast.Source analyzed = TestSources.analyze("VAR x: Integer = 1; FUN main(): Integer DO x = x + 1; RETURN x; END");
+        Ast.Source read = roundTrip(analyzed);
+        Ast.Statement.Return statement = (Ast.Statement.Return) read.getFunctions().get(0).getStatements().get(1);
+        Assertions.assertSame(read.getGlobals().get(0).getVariable(), ((Ast.Expression.Access) statement.getValue()).getVariable());
+    }
+
+    @Test
+    void testSlots() throws IOException {
+        Ast.Source analyzed = TestSources.analyze("VAR x: Integer = 1; FUN f(n: Integer): Integer DO LET m: Integer = n - 1; IF n > 1 DO RETURN n * f(m); END RETURN x; END FUN main(): Integer DO RETURN f(5); END");
+        Ast.Source read = roundTrip(analyzed);
+        Environment.Variable global = read.getGlobals().get(0).getVariable();
+        Assertions.assertEquals(0, global.getDepth());
+        Assertions.assertEquals(0, global.getIndex());
+        Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) read.getFunctions().get(0).getStatements().get(0);
+        Assertions.assertEquals(1, declaration.getVariable().getDepth());
+        Assertions.assertEquals(1, declaration.getVariable().getIndex());
+        Assertions.assertEquals(2, read.getFunctions().get(0).getFrameSize());
+        Assertions.assertEquals(1, read.getFunctions().get(1).getFunction().getIndex());
+        Assertions.assertEquals(120L, new Interpreter(new Scope(null)).visit(read).getValue());
+    }
+
+    @Test
+    void testBigInteger() throws IOException {
+        Ast.Source parsed = TestSources.parse("VAL big: Integer = 123456789012345678901234567890;");
+        Assertions.assertEquals(parsed, roundTrip(parsed));
+    }
+
+    @Test
+    void testIntegerForms() throws IOException {
+        //a small BigInteger stays a BigInteger rather than becoming a Long
+        Ast.Source source = new Ast.Source(Arrays.asList(
+                new Ast.Global("small", "Integer", false, Optional.of(new Ast.Expression.Literal(1L))),
+                new Ast.Global("big", "Integer", false, Optional.of(new Ast.Expression.Literal(BigInteger.ONE)))
+        ), Arrays.asList());
+        Assertions.assertEquals(source, roundTrip(source));
+    }
+
+    @Test
+    void testVersion() {
+        byte[] bytes = {0x50, 0x4C, 0x43, 0x41, AstWriter.VERSION + 1, 0, 0, 0};
+        Assertions.assertThrows(StreamCorruptedException.class, () -> new AstReader(new ByteArrayInputStream(bytes)).read());
+    }
+
+    @Test
+    void testCorruptedStream() throws IOException {
+        byte[] bytes = write(TestSources.analyze(String.join("\n",
+                "VAR x: Integer = 1;",
+                "FUN f(a: Integer, b: Decimal): Integer DO LET y: String = \"s\"; RETURN a + x; END",
+                "FUN main(): Integer DO print('c'); RETURN f(x, 1.0); END"
+        )));
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            byte[] corrupted = bytes.clone();
+            for (int j = random.nextInt(3); j >= 0; j--) {
+                corrupted[random.nextInt(corrupted.length)] = (byte) random.nextInt(256);
+            }
+            //any other exception fails the test
+            try {
+                new AstReader(new ByteArrayInputStream(corrupted)).read();
+            } catch (StreamCorruptedException | EOFException e) {}
+        }
+    }
+
+    @Test
+    void testCorruptedSize() {
+        //a string of 2^31 - 1 bytes, and a size which does not fit in an int
+        byte[] large = {0x50, 0x4C, 0x43, 0x41, AstWriter.VERSION, 0, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        Assertions.assertThrows(EOFException.class, () -> new AstReader(new ByteArrayInputStream(large)).read());
+        byte[] overflow = {0x50, 0x4C, 0x43, 0x41, AstWriter.VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x08};
+        Assertions.assertThrows(StreamCorruptedException.class, () -> new AstReader(new ByteArrayInputStream(overflow)).read());
+    }
+
+    private static Ast.Source roundTrip(Ast.Source source) throws IOException {
+        return new AstReader(new ByteArrayInputStream(write(source))).read();
+    }
+
+    private static byte[] write(Ast.Source source) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AstWriter(out).write(source);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,33 @@
+package plc.project;
+
+import java.util.Collections;
+
+/**
+ * Parses and analyzes whole sources for the tests which need a tree to work
+ * on rather than the output of a single phase.
+ */
+final class TestSources {
+
+    private TestSources() {}
+
+    static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    /**
+     * Returns the scope the analyzer expects its parent to be, which already
+     * declares {@code main/0}.
+     */
+    static Scope analyzerScope() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("main", "main", Collections.emptyList(), Environment.Type.INTEGER, args -> Environment.NIL);
+        return scope;
+    }
+
+    static Ast.Source analyze(String input) {
+        Ast.Source ast = parse(input);
+        new Analyzer(analyzerScope()).visit(ast);
+        return ast;
+    }
+
+}